@@ -0,0 +1,269 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Load test for OrderApi: simulated phones browsing the menu, filling carts,
+ * checking out and reading their history.
+ *
+ * Without arguments it starts its own OrderApi on a scratch database and journal;
+ * pass a base URL (e.g. http://10.0.0.5:8080) to hit a running server instead.
+ *
+ *   java -cp out:sqlite-jdbc.jar ApiLoadTest [baseUrl]
+ *   (-Dloadtest.clients=64 -Dloadtest.seconds=10 -Dloadtest.target=1000)
+ *
+ * Each client loops: menu, add to cart, view cart, and every 5th round checkout + history.
+ * Clients speak plain keep-alive HTTP/1.1 over one socket each (like wrk), so on a small
+ * box the load generator doesn't eat the CPU the server is being measured on.
+ * Exit code 0 = at least target requests/s with no errors, 1 otherwise.
+ */
+public final class ApiLoadTest {
+
+    private static final int CLIENTS = Integer.getInteger("loadtest.clients", 64);
+    private static final int SECONDS = Integer.getInteger("loadtest.seconds", 10);
+    private static final int TARGET = Integer.getInteger("loadtest.target", 1000);
+
+    private static final Pattern TOKEN = Pattern.compile("\"token\":\"([^\"]+)\"");
+
+    private final String base;
+    private final String host;
+    private final int port;
+    private final Map<String, LatencyHistogram> latency = new LinkedHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    private ApiLoadTest(String base) {
+        this.base = base;
+        URI uri = URI.create(base);
+        this.host = uri.getHost();
+        this.port = uri.getPort() < 0 ? 80 : uri.getPort();
+        for (String name : new String[]{"menu", "add", "cart", "checkout", "orders"}) {
+            latency.put(name, new LatencyHistogram(name));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        OrderApi local = null;
+        String base;
+        if (args.length > 0) {
+            base = args[0];
+        } else {
+            local = startScratchApi();
+            base = "http://localhost:" + local.getPort();
+        }
+
+        ApiLoadTest test = new ApiLoadTest(base);
+        double rate;
+        try {
+            rate = test.run();
+        } finally {
+            if (local != null) {
+                local.close();
+            }
+        }
+
+        boolean ok = rate >= TARGET && test.errors.get() == 0;
+        System.out.println(ok ? "PASS" : "FAIL (target " + TARGET + " req/s, no errors)");
+        System.exit(ok ? 0 : 1);
+    }
+
+    private static OrderApi startScratchApi() throws IOException {
+        File db = File.createTempFile("cybereatdiri-loadtest", ".db");
+        File journal = File.createTempFile("cybereatdiri-loadtest", ".journal");
+        for (File f : new File[]{db, journal, new File(db + "-wal"), new File(db + "-shm")}) {
+            f.deleteOnExit();
+        }
+
+        // Must be set before Database and OrderWriter are first touched
+        System.setProperty("cybereatdiri.db.url", "jdbc:sqlite:" + db.getAbsolutePath());
+        System.setProperty("cybereatdiri.orders.journal", journal.getAbsolutePath());
+
+        String err = SchemaMigrator.migrate();
+        if (err != null) {
+            throw new IOException(err);
+        }
+        OrderWriter.start();
+
+        OrderApi api = new OrderApi();
+        api.start(InetAddress.getLoopbackAddress(), 0);
+        return api;
+    }
+
+    // ---------- RUN ----------
+
+    private double run() throws Exception {
+        String email = "loadtest-" + System.currentTimeMillis() + "@local";
+        String password = "loadtest";
+        try (Connection setup = new Connection()) {
+            setup.send("POST", "/api/register", "email=" + email + "&phone=0&password=" + password, null, null);
+        }
+
+        System.out.println("Load test: " + CLIENTS + " clients for " + SECONDS + "s against " + base);
+
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(SECONDS);
+        long start = System.nanoTime();
+
+        ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+        for (int i = 0; i < CLIENTS; i++) {
+            clients.submit(() -> {
+                try (Connection conn = new Connection()) {
+                    String token = conn.login(email, password);
+                    conn.runClient(token, end);
+                } catch (Exception e) {
+                    errors.incrementAndGet();
+                    System.out.println("Client failed: " + e);
+                }
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(SECONDS + 60L, TimeUnit.SECONDS);
+
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        double rate = requests.get() / elapsed;
+
+        System.out.printf("%d requests in %.1fs = %.0f req/s, %d errors%n", requests.get(), elapsed, rate, errors.get());
+        for (LatencyHistogram h : latency.values()) {
+            System.out.println("  " + h.describe());
+        }
+        return rate;
+    }
+
+    /** One simulated phone: a keep-alive socket and its request loop. */
+    private final class Connection implements AutoCloseable {
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+
+        Connection() throws IOException {
+            socket = new Socket(host, port);
+            socket.setTcpNoDelay(true);
+            in = new BufferedInputStream(socket.getInputStream());
+            out = new BufferedOutputStream(socket.getOutputStream());
+        }
+
+        void runClient(String token, long end) throws IOException {
+            List<CyberEatDiriApp.MenuItem> menu = new ArrayList<>(OrderingService.FOOD_MENU);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+
+            for (int round = 1; System.nanoTime() < end; round++) {
+                String sku = menu.get(random.nextInt(menu.size())).sku;
+
+                send("GET", "/api/menu", null, token, "menu");
+                send("POST", "/api/cart/items", "sku=" + sku + "&qty=" + (1 + random.nextInt(3)), token, "add");
+                send("GET", "/api/cart", null, token, "cart");
+
+                if (round % 5 == 0) {
+                    send("POST", "/api/checkout", "pc=PC+" + (1 + random.nextInt(40)) + "&payment=GCash", token, "checkout");
+                    send("GET", "/api/orders?limit=20", null, token, "orders");
+                }
+            }
+        }
+
+        String login(String email, String password) throws IOException {
+            String body = send("POST", "/api/login", "email=" + email + "&password=" + password, null, null);
+            Matcher m = TOKEN.matcher(body);
+            if (!m.find()) {
+                throw new IOException("No token in login reply: " + body);
+            }
+            return m.group(1);
+        }
+
+        // One request; counted and timed under name (null = setup, not counted)
+        String send(String method, String path, String form, String token, String name) throws IOException {
+            byte[] body = form == null ? new byte[0] : form.getBytes(StandardCharsets.UTF_8);
+
+            StringBuilder req = new StringBuilder()
+                    .append(method).append(' ').append(path).append(" HTTP/1.1\r\n")
+                    .append("Host: ").append(host).append(':').append(port).append("\r\n")
+                    .append("Content-Length: ").append(body.length).append("\r\n");
+            if (token != null) {
+                req.append("Authorization: Bearer ").append(token).append("\r\n");
+            }
+            if (form != null) {
+                req.append("Content-Type: application/x-www-form-urlencoded\r\n");
+            }
+            req.append("\r\n");
+
+            long start = System.nanoTime();
+            out.write(req.toString().getBytes(StandardCharsets.US_ASCII));
+            out.write(body);
+            out.flush();
+
+            int status = readResponse();
+            String text = lastBody.toString(StandardCharsets.UTF_8);
+            if (name != null) {
+                latency.get(name).recordSince(start);
+                requests.incrementAndGet();
+            }
+
+            if (status >= 300) {
+                errors.incrementAndGet();
+                System.out.println(method + " " + path + " -> " + status + " " + text);
+            }
+            return text;
+        }
+
+        private final ByteArrayOutputStream lastBody = new ByteArrayOutputStream();
+
+        // Status line, headers (only Content-Length matters), then exactly that many body bytes
+        private int readResponse() throws IOException {
+            String statusLine = readLine();
+            int status = Integer.parseInt(statusLine.split(" ")[1]);
+
+            int length = 0;
+            String line;
+            while (!(line = readLine()).isEmpty()) {
+                int colon = line.indexOf(':');
+                if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("Content-Length")) {
+                    length = Integer.parseInt(line.substring(colon + 1).trim());
+                }
+            }
+
+            lastBody.reset();
+            byte[] buf = in.readNBytes(length);
+            if (buf.length < length) {
+                throw new IOException("Connection closed mid-response");
+            }
+            lastBody.write(buf);
+            return status;
+        }
+
+        private String readLine() throws IOException {
+            StringBuilder sb = new StringBuilder();
+            int c;
+            while ((c = in.read()) != '\n') {
+                if (c < 0) {
+                    throw new IOException("Connection closed by server");
+                }
+                if (c != '\r') {
+                    sb.append((char) c);
+                }
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
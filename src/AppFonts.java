@@ -0,0 +1,100 @@
+import java.awt.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The app's one font family, resolved once and shared by both windows.
+ *
+ * Looks for the Poppins TTFs under /fonts on the classpath (Poppins-Regular.ttf,
+ * Poppins-Bold.ttf, ...), registers them with the GraphicsEnvironment and derives
+ * every size from those. If they aren't bundled it uses an installed Poppins, and
+ * otherwise SansSerif, so a missing font costs one lookup instead of one per label.
+ * {@link #get} returns the same Font instance for the same (style, size).
+ */
+public final class AppFonts {
+
+    public static final String FAMILY = "Poppins";
+    private static final String FALLBACK = Font.SANS_SERIF;
+
+    private static final String[] FILES = {
+            "Poppins-Regular.ttf",    // Font.PLAIN
+            "Poppins-Bold.ttf",       // Font.BOLD
+            "Poppins-Italic.ttf",     // Font.ITALIC
+            "Poppins-BoldItalic.ttf"  // Font.BOLD | Font.ITALIC
+    };
+
+    // base fonts by style (index = Font style bits), null where no file was found
+    private static final Font[] bundled = new Font[4];
+    private static final String family;
+
+    private static final Map<Integer, Font> cache = new ConcurrentHashMap<>();
+
+    static {
+        GraphicsEnvironment ge = GraphicsEnvironment.getLocalGraphicsEnvironment();
+        boolean any = false;
+        for (int style = 0; style < FILES.length; style++) {
+            bundled[style] = load(ge, "/fonts/" + FILES[style]);
+            any |= bundled[style] != null;
+        }
+
+        if (any) {
+            family = FAMILY;
+        } else if (isInstalled(ge, FAMILY)) {
+            family = FAMILY;
+            System.out.println("Poppins not bundled; using the installed copy");
+        } else {
+            family = FALLBACK;
+            System.out.println("Poppins not bundled (see src/fonts/README.txt) or installed; using " + FALLBACK);
+        }
+    }
+
+    private AppFonts() {
+    }
+
+    /** Font in the app family; style is Font.PLAIN / BOLD / ITALIC (or BOLD | ITALIC). */
+    public static Font get(int style, int size) {
+        int s = style & (Font.BOLD | Font.ITALIC);
+        return cache.computeIfAbsent(s * 1000 + size, k -> create(s, size));
+    }
+
+    public static String getFamily() {
+        return family;
+    }
+
+    private static Font create(int style, int size) {
+        Font base = bundled[style];
+        if (base != null) {
+            return base.deriveFont((float) size);
+        }
+        if (bundled[Font.PLAIN] != null) {
+            // no file for this style: let Java2D embolden/slant the regular face
+            return bundled[Font.PLAIN].deriveFont(style, (float) size);
+        }
+        return new Font(family, style, size);
+    }
+
+    private static Font load(GraphicsEnvironment ge, String path) {
+        try (InputStream in = AppFonts.class.getResourceAsStream(path)) {
+            if (in == null) {
+                return null;
+            }
+            Font font = Font.createFont(Font.TRUETYPE_FONT, in);
+            ge.registerFont(font);
+            return font;
+        } catch (IOException | FontFormatException e) {
+            System.out.println("Could not load font " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static boolean isInstalled(GraphicsEnvironment ge, String name) {
+        for (String f : ge.getAvailableFontFamilyNames()) {
+            if (f.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,146 @@
+import javax.swing.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Startup asset loader.
+ *
+ * {@link #start()} finds every image under /assets (exploded classes dir or jar),
+ * then decodes and scales them in parallel on a small worker pool while the login
+ * screen is up, filling {@link IconCache} at the sizes the UI asks for. By the time
+ * CyberEatDiriApp builds its cards, loadIcon is a cache hit (or waits on the
+ * in-flight decode rather than starting a second one). AppFonts is warmed up here too.
+ *
+ * Also logs time-to-first-frame so startup on the older station PCs can be compared.
+ */
+public final class AssetPreloader {
+
+    private static final String ASSET_DIR = "assets";
+
+    // Every size passed to loadIcon (tab icons, cart button, dialogs, cards, logout)
+    private static final int[] SIZES = {16, 18, 32, 48, 120};
+
+    private static CompletableFuture<Void> done;
+
+    private AssetPreloader() {
+    }
+
+    /** Starts preloading once per process; later calls return the same future. */
+    public static synchronized CompletableFuture<Void> start() {
+        if (done != null) {
+            return done;
+        }
+
+        long begin = System.nanoTime();
+        List<String> assets = discover();
+
+        int threads = Math.max(1, Math.min(assets.size(), Runtime.getRuntime().availableProcessors()));
+        AtomicInteger n = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "asset-loader-" + n.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(Thread.NORM_PRIORITY - 1); // keep the EDT snappy
+            return t;
+        });
+
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        tasks.add(CompletableFuture.runAsync(AppFonts::getFamily, pool)); // loads + registers the font files
+        for (String path : assets) {
+            tasks.add(CompletableFuture.runAsync(() -> IconCache.preload(path, SIZES), pool));
+        }
+
+        done = CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0]))
+                .whenComplete((v, ex) -> {
+                    pool.shutdown();
+                    System.out.printf("Preloaded %d asset(s) on %d thread(s) in %.1f ms%n",
+                            assets.size(), threads, (System.nanoTime() - begin) / 1_000_000.0);
+                });
+        return done;
+    }
+
+    // Lists "/assets/<name>.png" resources from wherever the classes were loaded
+    static List<String> discover() {
+        List<String> found = new ArrayList<>();
+        URL url = AssetPreloader.class.getResource("/" + ASSET_DIR);
+        if (url == null) {
+            System.out.println("Asset folder not found on classpath: /" + ASSET_DIR);
+            return found;
+        }
+
+        try {
+            URLConnection conn = url.openConnection();
+            if (conn instanceof JarURLConnection) {
+                // uncached so closing our JarFile can't break the class loader's copy
+                conn.setUseCaches(false);
+                try (JarFile jar = ((JarURLConnection) conn).getJarFile()) {
+                    Enumeration<JarEntry> entries = jar.entries();
+                    while (entries.hasMoreElements()) {
+                        String name = entries.nextElement().getName();
+                        if (name.startsWith(ASSET_DIR + "/") && isImage(name)) {
+                            found.add("/" + name);
+                        }
+                    }
+                }
+            } else {
+                File dir = new File(url.toURI());
+                File[] files = dir.listFiles();
+                if (files != null) {
+                    for (File f : files) {
+                        if (f.isFile() && isImage(f.getName())) {
+                            found.add("/" + ASSET_DIR + "/" + f.getName());
+                        }
+                    }
+                }
+            }
+        } catch (IOException | URISyntaxException | IllegalArgumentException e) {
+            System.out.println("Could not list assets: " + e.getMessage());
+        }
+        return found;
+    }
+
+    private static boolean isImage(String name) {
+        String n = name.toLowerCase();
+        return n.endsWith(".png") || n.endsWith(".jpg") || n.endsWith(".jpeg") || n.endsWith(".gif");
+    }
+
+    // ---------- STARTUP TIMING ----------
+
+    /**
+     * Logs how long a window took to appear: since JVM start, and since sinceNanos
+     * (a System.nanoTime() mark, or -1 to skip). Call before setVisible(true).
+     */
+    public static void logFirstFrame(JFrame frame, String label, long sinceNanos) {
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+                // queued behind the first paint of the new window
+                SwingUtilities.invokeLater(() -> {
+                    long sinceJvm = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+                    if (sinceNanos >= 0) {
+                        System.out.printf("Time to first frame (%s): %d ms since JVM start, %.1f ms to build%n",
+                                label, sinceJvm, (System.nanoTime() - sinceNanos) / 1_000_000.0);
+                    } else {
+                        System.out.printf("Time to first frame (%s): %d ms since JVM start%n", label, sinceJvm);
+                    }
+                });
+                frame.removeWindowListener(this);
+            }
+        });
+    }
+}
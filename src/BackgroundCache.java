@@ -0,0 +1,126 @@
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pre-rendered background for one component (gradient fills, antialiased rounded shapes).
+ *
+ * The painter runs only when the component's size, the screen scale or the caller's
+ * state (e.g. background colour) changes; every other repaint is a single drawImage of
+ * a screen-compatible image. Each cache reports under a name so repaint counts and
+ * times can be compared with {@link #describeStats()}.
+ */
+public final class BackgroundCache {
+
+    /** Draws the background into a w x h area (logical pixels). */
+    public interface Painter {
+        void paint(Graphics2D g, int w, int h);
+    }
+
+    private static final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    private final Painter painter;
+    private final Stats stat;
+
+    private BufferedImage image;
+    private int width;
+    private int height;
+    private double scale;
+    private Object state;
+
+    public BackgroundCache(String name, Painter painter) {
+        this.painter = painter;
+        this.stat = stats.computeIfAbsent(name, k -> new Stats());
+    }
+
+    /**
+     * Draws the cached background at 0,0 of g, re-rendering it first if w, h, the device
+     * scale or state (compared with equals, may be null) differ from last time.
+     */
+    public void paint(Graphics g, int w, int h, Object state) {
+        if (w <= 0 || h <= 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        Graphics2D g2 = (Graphics2D) g;
+
+        // Render at device resolution so HiDPI screens don't get a blurry upscale
+        AffineTransform tx = g2.getTransform();
+        double s = Math.max(1.0, Math.max(tx.getScaleX(), tx.getScaleY()));
+
+        if (image == null || w != width || h != height || s != scale || !Objects.equals(state, this.state)) {
+            render(g2.getDeviceConfiguration(), w, h, s);
+            this.state = state;
+            stat.renders.incrementAndGet();
+        }
+
+        g2.drawImage(image, 0, 0, w, h, null);
+
+        stat.paints.incrementAndGet();
+        stat.nanos.addAndGet(System.nanoTime() - start);
+    }
+
+    /** Forces the next paint to re-render (e.g. after a theme change). */
+    public void invalidate() {
+        image = null;
+    }
+
+    private void render(GraphicsConfiguration gc, int w, int h, double s) {
+        int pw = (int) Math.ceil(w * s);
+        int ph = (int) Math.ceil(h * s);
+
+        if (image != null) {
+            image.flush();
+        }
+        image = gc != null
+                ? gc.createCompatibleImage(pw, ph, Transparency.TRANSLUCENT)
+                : new BufferedImage(pw, ph, BufferedImage.TYPE_INT_ARGB_PRE);
+
+        Graphics2D ig = image.createGraphics();
+        try {
+            ig.scale(s, s);
+            painter.paint(ig, w, h);
+        } finally {
+            ig.dispose();
+        }
+
+        width = w;
+        height = h;
+        scale = s;
+    }
+
+    // ---------- METRICS ----------
+
+    private static class Stats {
+        final AtomicLong paints = new AtomicLong();
+        final AtomicLong renders = new AtomicLong();
+        final AtomicLong nanos = new AtomicLong();
+    }
+
+    public static long getPaintCount(String name) {
+        Stats s = stats.get(name);
+        return s == null ? 0 : s.paints.get();
+    }
+
+    public static long getRenderCount(String name) {
+        Stats s = stats.get(name);
+        return s == null ? 0 : s.renders.get();
+    }
+
+    public static String describeStats() {
+        StringBuilder sb = new StringBuilder("background cache:");
+        for (Map.Entry<String, Stats> e : new TreeMap<>(stats).entrySet()) {
+            Stats s = e.getValue();
+            long paints = s.paints.get();
+            sb.append(String.format(" %s[paints=%d renders=%d avg=%.3f ms]",
+                    e.getKey(), paints, s.renders.get(),
+                    paints == 0 ? 0.0 : s.nanos.get() / 1_000_000.0 / paints));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,142 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The shopping cart: one line per SKU, in the order items were first added.
+ *
+ * Adding a SKU that is already in the cart increases that line's quantity instead of
+ * creating a second line. Item count and total are kept as running counters, so
+ * reading them never walks the lines. Row listeners (CartTableModel) are told exactly
+ * which line was inserted, updated or removed; change listeners (cart button, total
+ * label) just re-read the counters. EDT only.
+ */
+public class Cart implements Iterable<CyberEatDiriApp.CartItem> {
+
+    /** Row-level changes, by line index. */
+    public interface RowListener {
+        void lineInserted(int row);
+
+        void lineUpdated(int row);
+
+        // lines first..last were removed (clear() reports every line at once)
+        void linesRemoved(int first, int last);
+    }
+
+    private final List<CyberEatDiriApp.CartItem> lines = new ArrayList<>();
+    private final Map<String, CyberEatDiriApp.CartItem> bySku = new HashMap<>();
+
+    private int itemCount;
+    private int total;
+
+    private final List<RowListener> rowListeners = new CopyOnWriteArrayList<>();
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+
+    // ---------- CHANGES ----------
+
+    /** Adds qty of a SKU: a new line, or more of an existing one. */
+    public void add(CyberEatDiriApp.CartItem item) {
+        CyberEatDiriApp.CartItem existing = bySku.get(item.sku);
+
+        if (existing != null) {
+            existing.quantity += item.quantity;
+            int row = lines.indexOf(existing);
+            for (RowListener l : rowListeners) l.lineUpdated(row);
+        } else {
+            lines.add(item);
+            bySku.put(item.sku, item);
+            int row = lines.size() - 1;
+            for (RowListener l : rowListeners) l.lineInserted(row);
+        }
+
+        itemCount += item.quantity;
+        total += item.getTotal();
+        fireChanged();
+    }
+
+    public void remove(int row) {
+        CyberEatDiriApp.CartItem item = lines.remove(row);
+        bySku.remove(item.sku);
+
+        itemCount -= item.quantity;
+        total -= item.getTotal();
+
+        for (RowListener l : rowListeners) l.linesRemoved(row, row);
+        fireChanged();
+    }
+
+    public void clear() {
+        int n = lines.size();
+        if (n == 0) {
+            return;
+        }
+
+        lines.clear();
+        bySku.clear();
+        itemCount = 0;
+        total = 0;
+
+        for (RowListener l : rowListeners) l.linesRemoved(0, n - 1);
+        fireChanged();
+    }
+
+    // ---------- READS ----------
+
+    public CyberEatDiriApp.CartItem get(int row) {
+        return lines.get(row);
+    }
+
+    public int size() {
+        return lines.size();
+    }
+
+    public boolean isEmpty() {
+        return lines.isEmpty();
+    }
+
+    /** Quantity of a SKU in the cart, 0 if it has no line. */
+    public int getQuantity(String sku) {
+        CyberEatDiriApp.CartItem item = bySku.get(sku);
+        return item == null ? 0 : item.quantity;
+    }
+
+    /** Total quantity across all lines. */
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    @Override
+    public Iterator<CyberEatDiriApp.CartItem> iterator() {
+        return Collections.unmodifiableList(lines).iterator();
+    }
+
+    // ---------- LISTENERS ----------
+
+    public void addRowListener(RowListener l) {
+        rowListeners.add(l);
+    }
+
+    public void removeRowListener(RowListener l) {
+        rowListeners.remove(l);
+    }
+
+    public void addChangeListener(Runnable l) {
+        changeListeners.add(l);
+    }
+
+    public void removeChangeListener(Runnable l) {
+        changeListeners.remove(l);
+    }
+
+    private void fireChanged() {
+        for (Runnable l : changeListeners) l.run();
+    }
+}
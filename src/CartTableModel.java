@@ -0,0 +1,93 @@
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Cart dialog table backed directly by a {@link Cart}.
+ *
+ * Forwards the cart's row events as matching insert/update/delete events, so the
+ * table only repaints the lines that changed. An empty cart shows a single
+ * "Your cart is empty" row; the first insert and the last removal turn that row
+ * into a line (or back) with an update event. Call {@link #detach} when the dialog closes.
+ */
+public final class CartTableModel extends AbstractTableModel implements Cart.RowListener {
+
+    private static final String[] COLUMNS = {"Name", "Qty", "Unit", "Total"};
+    private static final String EMPTY = "Your cart is empty";
+
+    private final Cart cart;
+
+    public CartTableModel(Cart cart) {
+        this.cart = cart;
+        cart.addRowListener(this);
+    }
+
+    public void detach() {
+        cart.removeRowListener(this);
+    }
+
+    // ---------- TABLE MODEL ----------
+
+    @Override
+    public int getRowCount() {
+        return Math.max(1, cart.size());
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        if (cart.isEmpty()) {
+            return column == 0 ? EMPTY : "";
+        }
+
+        CyberEatDiriApp.CartItem c = cart.get(row);
+        switch (column) {
+            case 0: return c.name;
+            case 1: return c.quantity;
+            case 2: return "P" + c.unitPrice;
+            case 3: return "P" + c.getTotal();
+            default: return "";
+        }
+    }
+
+    // ---------- CART EVENTS ----------
+
+    @Override
+    public void lineInserted(int row) {
+        if (cart.size() == 1) {
+            fireTableRowsUpdated(0, 0); // placeholder row becomes the first line
+        } else {
+            fireTableRowsInserted(row, row);
+        }
+    }
+
+    @Override
+    public void lineUpdated(int row) {
+        fireTableRowsUpdated(row, row);
+    }
+
+    @Override
+    public void linesRemoved(int first, int last) {
+        if (!cart.isEmpty()) {
+            fireTableRowsDeleted(first, last);
+            return;
+        }
+        // everything is gone: row 0 stays as the placeholder
+        if (last > 0) {
+            fireTableRowsDeleted(1, last);
+        }
+        fireTableRowsUpdated(0, 0);
+    }
+}
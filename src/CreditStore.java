@@ -0,0 +1,16 @@
+/**
+ * Game-credit ledger and balance (see CyberEatDiriApp.CreditLedgerDatabaseHelper).
+ */
+public interface CreditStore {
+
+    // Saves a credit sale (OrderingService.creditOrder) as an order plus a purchase entry for its pack's time
+    boolean purchase(CyberEatDiriApp.Order order);
+
+    void recordUsage(int userId, long remainingSeconds);
+
+    // Takes back a credit sale whose time is still unused; false if it can't be
+    boolean refund(int userId, long orderId);
+
+    // {seconds, totalSpent}, or null if the user never bought credits; read at login
+    long[] getBalance(int userId);
+}
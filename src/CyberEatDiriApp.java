@@ -1,64 +1,75 @@
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableCellRenderer;
 import java.awt.*;
 import java.util.ArrayList;
-import java.util.Date;
-import java.text.SimpleDateFormat;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 
 public class CyberEatDiriApp {
-    private static final String APP_FONT = "Poppins";
 
     // ---------- DATA MODELS ----------
     static class MenuItem {
+        String sku;           // stable id stored in order_items
         String icon;          // emoji fallback
         String name;
         String description;
         int price;
         String imagePath;     // asset path
+        int prepMinutes;      // kitchen time for one batch (KitchenQueue priority)
 
-        MenuItem(String icon, String name, String description, int price, String imagePath) {
+        MenuItem(String icon, String name, String description, int price, String imagePath, int prepMinutes) {
+            this.sku = OrderLine.skuFor(name);
             this.icon = icon;
             this.name = name;
             this.description = description;
             this.price = price;
             this.imagePath = imagePath;
+            this.prepMinutes = prepMinutes;
         }
     }
 
     static class CreditItem {
+        String sku;           // order_items sku of a sale of this pack
         String icon;          // emoji fallback
         String hours;
         String label;
         int price;
         String imagePath;
+        long seconds;         // game time the pack adds
 
         CreditItem(String icon, String hours, String label, int price, String imagePath) {
+            this.sku = OrderLine.skuFor("Credit " + hours);
             this.icon = icon;
             this.hours = hours;
             this.label = label;
             this.price = price;
             this.imagePath = imagePath;
+            this.seconds = hoursIn(hours) * 60L * 60L;
+        }
+
+        private static int hoursIn(String hours) {
+            try {
+                return Integer.parseInt(hours.split(" ")[0].trim()); // "1", "3", "5", "10"
+            } catch (Exception ex) {
+                return 1; // safe fallback
+            }
         }
     }
 
     static class CartItem {
-        long id;
+        String sku;           // one cart line per SKU (see Cart)
         String icon;          // emoji fallback
         String name;
         String imagePath;
         int unitPrice;
         int quantity;
 
-        CartItem(long id, String icon, String name, String imagePath, int unitPrice, int quantity) {
-            this.id = id;
+        CartItem(String sku, String icon, String name, String imagePath, int unitPrice, int quantity) {
+            this.sku = sku;
             this.icon = icon;
             this.name = name;
             this.imagePath = imagePath;
@@ -69,22 +80,58 @@ public class CyberEatDiriApp {
         int getTotal() {
             return unitPrice * quantity;
         }
+
+        OrderLine toOrderLine() {
+            return new OrderLine(sku, name, quantity, unitPrice);
+        }
     }
 
     static class Order {
-        String time;
-        String itemsSummary;   // multi-line plain text
+        long id;               // database id, -1 if not saved
+        int userId = -1;
+        String clientRef;      // unique per checkout, makes journal replay idempotent
+        long timestamp;        // epoch millis; formatted only when displayed (TIME_FORMAT)
+        String itemsSummary;   // legacy multi-line plain text (only shown if there are no structured items)
+        final java.util.List<OrderLine> items = new java.util.ArrayList<>();
         int total;
         String pcNumber;
         String paymentMethod;
+        OrderStatus status = OrderStatus.QUEUED;
+
+        // DateTimeFormatter is immutable and thread-safe, so one instance serves every render
+        static final java.time.format.DateTimeFormatter TIME_FORMAT =
+                java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm").withZone(java.time.ZoneId.systemDefault());
 
-        Order(String time, String itemsSummary, int total, String pcNumber, String paymentMethod) {
-            this.time = time;
+        private String itemsText;
+
+        Order(long timestamp, java.util.List<OrderLine> items, int total, String pcNumber, String paymentMethod) {
+            this(-1, timestamp, OrderLine.format(items), total, pcNumber, paymentMethod);
+            this.items.addAll(items);
+        }
+
+        Order(long id, long timestamp, String itemsSummary, int total, String pcNumber, String paymentMethod) {
+            this.id = id;
+            this.timestamp = timestamp;
             this.itemsSummary = itemsSummary;
             this.total = total;
             this.pcNumber = pcNumber;
             this.paymentMethod = paymentMethod;
         }
+
+        String formattedTime() {
+            return TIME_FORMAT.format(java.time.Instant.ofEpochMilli(timestamp));
+        }
+
+        // Display text for the history table, built from the order_items rows
+        String itemsText() {
+            if (items.isEmpty()) {
+                return itemsSummary;
+            }
+            if (itemsText == null) {
+                itemsText = OrderLine.format(items);
+            }
+            return itemsText;
+        }
     }
 
     // ---------- MULTI-LINE CELL RENDERER FOR HISTORY TABLE ----------
@@ -94,25 +141,16 @@ public class CyberEatDiriApp {
             setLineWrap(true);
             setWrapStyleWord(true);
             setOpaque(true);
-            setFont(new Font(APP_FONT, Font.PLAIN, 12));
+            setFont(AppFonts.get(Font.PLAIN, 12));
         }
 
         @Override
         public Component getTableCellRendererComponent(JTable table, Object value,
                                                        boolean isSelected, boolean hasFocus,
                                                        int row, int column) {
+            // Row heights are set by RowHeightCache; changing them here would re-layout mid-paint
             setText(value == null ? "" : value.toString());
 
-            int colWidth = table.getColumnModel().getColumn(column).getWidth();
-            setSize(colWidth, Short.MAX_VALUE);
-
-            int preferredHeight = getPreferredSize().height;
-            int currentHeight = table.getRowHeight(row);
-
-            if (preferredHeight > currentHeight) {
-                table.setRowHeight(row, preferredHeight);
-            }
-
             if (isSelected) {
                 setBackground(table.getSelectionBackground());
                 setForeground(table.getSelectionForeground());
@@ -129,46 +167,87 @@ public class CyberEatDiriApp {
     private JFrame frame;
     private JButton cartButton;
     private JButton logoutButton;   // NEW
-    private final ArrayList<CartItem> cart = new ArrayList<>();
-    private final ArrayList<Order> orderHistory = new ArrayList<>();
-    private DefaultTableModel historyModel;
+    private final Cart cart = new Cart();
+    private OrderHistoryTableModel historyModel;
+    private JTextField historySearchField;
+    private int searchGeneration;           // bumped per search so late results are dropped
+
+    private static final int SEARCH_DELAY_MS = 250;
+    private static final int SEARCH_LIMIT = 200;
 
     private String userPcNumber = "";
     private String userSpecialRequest = "";
 
     // 🔹 NEW: helper for saving/loading orders per user
-    private OrderDatabaseHelper orderDb = new OrderDatabaseHelper();
+    // Local SQLite or the order server, depending on -Dcybereatdiri.server (see Stores)
+    private final OrderStore orderDb = Stores.orders();
+    private final GameSessionStore sessionDb = Stores.sessions();
+    private final CreditStore creditDb = Stores.credits();
+
+    // Cart/checkout/history rules shared with the HTTP API
+    private final OrderingService ordering = new OrderingService(orderDb);
+
+    // Re-reads the history once the write-behind writer has committed this user's orders
+    private final java.util.function.Consumer<java.util.List<Order>> orderCommitListener = committed -> {
+        for (Order o : committed) {
+            if (o.userId == UserSession.getCurrentUserId()) {
+                SwingUtilities.invokeLater(this::loadOrderHistoryForCurrentUser);
+                return;
+            }
+        }
+    };
+
+    // ---------- ORDER STATUS STATE ----------
+    // Kitchen status of this user's orders, pushed through OrderEventBus (see OrderStore.watchStatus)
+    private static final int STATUS_RECENT_ORDERS = 20;          // read once at start to fill the badge
+    private static final int DELIVERED_BADGE_MS = 60_000;        // how long "Delivered" stays up
+    private OrderStore.StatusFeed statusFeed;
+    private final java.util.TreeMap<Long, OrderStatus> openOrders = new java.util.TreeMap<>(); // EDT only
+    private final java.util.Set<Long> deliveredOrders = new java.util.HashSet<>(); // EDT only; pushes beat the first read
+    private JLabel statusBadge;
+    private Timer badgeHideTimer;
+
+    // Runs on the publishing thread: copy what is needed, then hop to the EDT
+    private final OrderEventBus.Listener statusListener = event -> {
+        if (event.order.userId != UserSession.getCurrentUserId() || event.order.id < 0) {
+            return;
+        }
+        long orderId = event.order.id;
+        OrderStatus status = event.status;
+        SwingUtilities.invokeLater(() -> applyOrderStatus(orderId, status));
+    };
 
     // ---------- GAME TIMER STATE ----------
-    private javax.swing.Timer gameTimer;   // Swing timer for countdown
-    private long remainingSeconds = 0;     // total remaining seconds
+    private final SessionClock gameClock = new SessionClock(this::handleTimeFinished);
+    private long purchasedSeconds;         // bought in the current session (saved with it)
+    // Session saves, deletes and loads, one at a time in order: an older ends_at must never land
+    // last, and the load after a re-login waits for the logout's checkpoint (shared by every window).
+    // Credit usage and refunds go here too, so two usage entries are never worked out at once.
+    private static final java.util.concurrent.Executor sessionWrites = DbExecutor.sequential();
+    private Order lastCreditOrder;         // newest credit sale saved this login, while it can be refunded
+    private CreditItem lastCreditItem;
     private JLabel timeRemainingLabel;     // label shown in Game Credits tab
 
     // ---------- MENU DATA with IMAGE PATHS ----------
-    private final MenuItem[] foodMenu = new MenuItem[] {
-            new MenuItem("🍕", "Gamer's Pizza", "Loaded with pepperoni, cheese, and extra energy.", 180, "/assets/pizza.png"),
-            new MenuItem("🍔", "Power Burger",  "Juicy beef patty with all the fixings.",           150, "/assets/burger.png"),
-            new MenuItem("🍟", "Crispy Fries",  "Golden and crispy, perfect for snacking.",         80,  "/assets/fries.png"),
-            new MenuItem("🥤", "Energy Drink",  "Stay alert and focused while gaming.",             60,  "/assets/energy.png"),
-            new MenuItem("🍪", "Cookie Combo",  "Freshly baked cookies for sweet breaks.",          95,  "/assets/cookies.png"),
-            new MenuItem("☕", "Coffee Boost",  "Premium coffee to keep you sharp.",                75,  "/assets/coffee.png")
-    };
-
-    private final CreditItem[] creditMenu = new CreditItem[] {
-            new CreditItem("⚡", "1 Hour",  "Quick Session",  20,  "/assets/credit_1h.png"),
-            new CreditItem("🔥", "3 Hours", "Popular Choice", 60,  "/assets/credit_3h.png"),
-            new CreditItem("💎", "5 Hours", "Best Value",     100, "/assets/credit_5h.png"),
-            new CreditItem("👑", "10 Hours","Ultimate Pack",  200, "/assets/credit_10h.png")
-    };
+    // Food menu and credit packs: OrderingService.FOOD_MENU / CREDIT_PACKS (shared with the API and the order server)
 
     // ---------- START ----------
     public static void main(String[] args) {
+        if (!Stores.isRemote()) {
+            SchemaMigrator.migrate();
+        }
+        OrderWriter.start(); // replays any checkouts left in the journal
+        AssetPreloader.start();
         SwingUtilities.invokeLater(() -> new CyberEatDiriApp().start());
     }
 
     public void start() {
+        long buildStart = System.nanoTime();
+
         // initialize order history database (per user)
         orderDb.init();
+        OrderWriter.addListener(orderCommitListener);
+        cart.addChangeListener(this::updateCartButton);
 
         frame = new JFrame("CYBER-EATDIRI");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -181,7 +260,10 @@ public class CyberEatDiriApp {
 
         // 🔹 After the history table is created, load this user's previous orders
         loadOrderHistoryForCurrentUser();
+        watchOrderStatus();
+        restoreGameSession();
 
+        AssetPreloader.logFirstFrame(frame, "main window", buildStart);
         frame.setVisible(true);
         updateCartButton();
     }
@@ -207,15 +289,25 @@ public class CyberEatDiriApp {
             cartButton.setHorizontalTextPosition(SwingConstants.RIGHT);
         }
         cartButton.setFocusPainted(false);
-        cartButton.setFont(new Font(APP_FONT, Font.BOLD, 14));
+        cartButton.setFont(AppFonts.get(Font.BOLD, 14));
         cartButton.addActionListener(e -> openCartDialog());
 
         // 🔹 Logout button
         logoutButton = new JButton("Logout");
         logoutButton.setFocusPainted(false);
-        logoutButton.setFont(new Font(APP_FONT, Font.BOLD, 14));
+        logoutButton.setFont(AppFonts.get(Font.BOLD, 14));
         logoutButton.addActionListener(e -> showLogoutDialog());
 
+        // Kitchen status of the latest order; hidden until there is one
+        statusBadge = new JLabel();
+        statusBadge.setOpaque(true);
+        statusBadge.setFont(AppFonts.get(Font.BOLD, 13));
+        statusBadge.setBorder(new EmptyBorder(5, 10, 5, 10));
+        statusBadge.setVisible(false);
+        badgeHideTimer = new Timer(DELIVERED_BADGE_MS, e -> statusBadge.setVisible(false));
+        badgeHideTimer.setRepeats(false);
+
+        rightPanel.add(statusBadge);
         rightPanel.add(cartButton);
         rightPanel.add(logoutButton);
 
@@ -250,12 +342,12 @@ public class CyberEatDiriApp {
 
         JLabel titleLabel = new JLabel("Log Out");
         titleLabel.setForeground(Color.WHITE);
-        titleLabel.setFont(new Font(APP_FONT, Font.BOLD, 28));
+        titleLabel.setFont(AppFonts.get(Font.BOLD, 28));
         titleLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
 
         JLabel subtitleLabel = new JLabel("Done ordering?");
         subtitleLabel.setForeground(Color.WHITE);
-        subtitleLabel.setFont(new Font(APP_FONT, Font.PLAIN, 14));
+        subtitleLabel.setFont(AppFonts.get(Font.PLAIN, 14));
         subtitleLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
 
         center.add(Box.createVerticalGlue());
@@ -273,7 +365,7 @@ public class CyberEatDiriApp {
         JButton cancelBtn = new JButton("CANCEL");
         JButton logoutBtn = new JButton("LOGOUT");
 
-        Font btnFont = new Font(APP_FONT, Font.BOLD, 12);
+        Font btnFont = AppFonts.get(Font.BOLD, 12);
         Color btnBg = new Color(0x5A0000);   // darker red
         Color btnFg = Color.WHITE;
 
@@ -304,12 +396,13 @@ public class CyberEatDiriApp {
     }
 
     private void performLogout() {
-        // stop game timer
-        if (gameTimer != null && gameTimer.isRunning()) {
-            gameTimer.stop();
-        }
-        remainingSeconds = 0;
-        updateTimerLabel();
+        // save the time left, then stop the countdown (it resumes on next login)
+        checkpointGameSession();
+        recordCreditUsage();
+        gameClock.stop();
+
+        OrderWriter.removeListener(orderCommitListener);
+        stopWatchingOrderStatus();
 
         // clear session info
         UserSession.clear();
@@ -332,11 +425,11 @@ public class CyberEatDiriApp {
 
         JLabel title = new JLabel("CYBER-EATDIRI");
         title.setForeground(Color.WHITE);
-        title.setFont(new Font(APP_FONT, Font.BOLD, 32));
+        title.setFont(AppFonts.get(Font.BOLD, 32));
 
         JLabel tagline = new JLabel("Game • Eat • Connect");
         tagline.setForeground(Color.WHITE);
-        tagline.setFont(new Font(APP_FONT, Font.PLAIN, 14));
+        tagline.setFont(AppFonts.get(Font.PLAIN, 14));
 
         titlePanel.add(title);
         titlePanel.add(tagline);
@@ -345,7 +438,7 @@ public class CyberEatDiriApp {
 
     private JTabbedPane buildTabs() {
         JTabbedPane tabs = new JTabbedPane();
-        tabs.setFont(new Font(APP_FONT, Font.PLAIN, 13));
+        tabs.setFont(AppFonts.get(Font.PLAIN, 13));
 
         // 🔹 Tab icons – we reuse existing images where possible
         ImageIcon foodIcon    = loadIcon("/assets/pizza.png",      16); // Food tab
@@ -367,16 +460,24 @@ public class CyberEatDiriApp {
 
         JLabel header = new JLabel("Food & Drinks", SwingConstants.CENTER);
         header.setForeground(Color.WHITE);
-        header.setFont(new Font(APP_FONT, Font.BOLD, 26));
+        header.setFont(AppFonts.get(Font.BOLD, 26));
         main.add(header, BorderLayout.NORTH);
 
-        JPanel grid = new JPanel(new GridLayout(0, 3, 15, 15));
+        // Only the cards in view exist; they are re-bound as the menu scrolls
+        VirtualCardGrid<MenuItem> grid = new VirtualCardGrid<>(3, 15, new VirtualCardGrid.Binder<MenuItem>() {
+            @Override
+            public JComponent create() {
+                return new FoodCard();
+            }
+
+            @Override
+            public void bind(JComponent card, MenuItem item) {
+                ((FoodCard) card).bind(item);
+            }
+        });
         grid.setBorder(new EmptyBorder(20, 0, 0, 0));
         grid.setBackground(new Color(0x1a0a0a));
-
-        for (MenuItem item : foodMenu) {
-            grid.add(buildFoodCard(item));
-        }
+        grid.setItems(OrderingService.FOOD_MENU);
 
         main.add(new JScrollPane(grid), BorderLayout.CENTER);
         return main;
@@ -389,24 +490,42 @@ public class CyberEatDiriApp {
 
         JLabel header = new JLabel("Game Credits", SwingConstants.CENTER);
         header.setForeground(Color.WHITE);
-        header.setFont(new Font(APP_FONT, Font.BOLD, 26));
+        header.setFont(AppFonts.get(Font.BOLD, 26));
         main.add(header, BorderLayout.NORTH);
 
-        JPanel grid = new JPanel(new GridLayout(0, 2, 15, 15));
+        VirtualCardGrid<CreditItem> grid = new VirtualCardGrid<>(2, 15, new VirtualCardGrid.Binder<CreditItem>() {
+            @Override
+            public JComponent create() {
+                return new CreditCard();
+            }
+
+            @Override
+            public void bind(JComponent card, CreditItem item) {
+                ((CreditCard) card).bind(item);
+            }
+        });
         grid.setBorder(new EmptyBorder(20, 0, 0, 0));
         grid.setBackground(new Color(0x1a0a0a));
-
-        for (CreditItem c : creditMenu) {
-            grid.add(buildCreditCard(c));
-        }
+        grid.setItems(OrderingService.CREDIT_PACKS);
 
         main.add(new JScrollPane(grid), BorderLayout.CENTER);
 
         // 🔹 Timer label at the bottom of the Game Credits tab
         timeRemainingLabel = new JLabel("Remaining Time: 00:00:00", SwingConstants.CENTER);
         timeRemainingLabel.setForeground(Color.WHITE);
-        timeRemainingLabel.setFont(new Font(APP_FONT, Font.BOLD, 16));
-        main.add(timeRemainingLabel, BorderLayout.SOUTH);
+        timeRemainingLabel.setFont(AppFonts.get(Font.BOLD, 16));
+        gameClock.attachLabel(timeRemainingLabel, s -> "Remaining Time: " + formatTime(s));
+
+        JButton refundButton = new JButton("Refund last pack");
+        refundButton.setFocusPainted(false);
+        refundButton.setFont(AppFonts.get(Font.PLAIN, 12));
+        refundButton.addActionListener(e -> refundLastCredit());
+
+        JPanel bottom = new JPanel(new BorderLayout());
+        bottom.setOpaque(false);
+        bottom.add(timeRemainingLabel, BorderLayout.CENTER);
+        bottom.add(refundButton, BorderLayout.EAST);
+        main.add(bottom, BorderLayout.SOUTH);
 
         return main;
     }
@@ -418,21 +537,31 @@ public class CyberEatDiriApp {
 
         JLabel header = new JLabel("Order History", SwingConstants.CENTER);
         header.setForeground(Color.WHITE);
-        header.setFont(new Font(APP_FONT, Font.BOLD, 26));
+        header.setFont(AppFonts.get(Font.BOLD, 26));
         main.add(header, BorderLayout.NORTH);
 
-        historyModel = new DefaultTableModel(
-                new Object[]{"Date/Time", "Items", "Total (P)", "PC Number", "Payment"},
-                0
-        ) {
-            public boolean isCellEditable(int row, int column) {
-                return false;
+        // Rows are paged in from the DB as the table scrolls
+        int userId = UserSession.getCurrentUserId();
+        historyModel = new OrderHistoryTableModel(new OrderHistoryTableModel.PageSource() {
+            @Override
+            public int count() {
+                return orderDb.countOrdersForUser(userId);
             }
-        };
+
+            @Override
+            public java.util.List<Order> pageBefore(long beforeId, int limit) {
+                return orderDb.getOrdersPage(userId, beforeId, limit);
+            }
+
+            @Override
+            public long idAfter(long beforeId, int skip) {
+                return orderDb.findOrderIdAfter(userId, beforeId, skip);
+            }
+        });
 
         JTable table = new JTable(historyModel);
-        table.setFont(new Font(APP_FONT, Font.PLAIN, 12));
-        table.getTableHeader().setFont(new Font(APP_FONT, Font.BOLD, 12));
+        table.setFont(AppFonts.get(Font.PLAIN, 12));
+        table.getTableHeader().setFont(AppFonts.get(Font.BOLD, 12));
         table.setRowHeight(40);
 
         MultiLineTableCellRenderer multiRenderer = new MultiLineTableCellRenderer();
@@ -442,145 +571,165 @@ public class CyberEatDiriApp {
         table.getColumnModel().getColumn(1).setPreferredWidth(300);
 
         JScrollPane scrollPane = new JScrollPane(table);
+        RowHeightCache.install(table, scrollPane, 1, multiRenderer.getFont());
 
-        main.add(scrollPane, BorderLayout.CENTER);
+        JPanel center = new JPanel(new BorderLayout(0, 10));
+        center.setOpaque(false);
+        center.add(buildHistorySearchBar(), BorderLayout.NORTH);
+        center.add(scrollPane, BorderLayout.CENTER);
+        main.add(center, BorderLayout.CENTER);
 
         JLabel info = new JLabel("Completed food orders will appear here.", SwingConstants.CENTER);
         info.setForeground(Color.LIGHT_GRAY);
-        info.setFont(new Font(APP_FONT, Font.PLAIN, 12));
+        info.setFont(AppFonts.get(Font.PLAIN, 12));
         main.add(info, BorderLayout.SOUTH);
 
         return main;
     }
 
-    private JPanel buildFoodCard(MenuItem item) {
-        JPanel card = new JPanel();
-        card.setLayout(new BoxLayout(card, BoxLayout.Y_AXIS));
-        card.setBorder(BorderFactory.createCompoundBorder(
-                BorderFactory.createLineBorder(new Color(0x4A0000), 2),
-                new EmptyBorder(15, 15, 15, 15)
-        ));
-        card.setBackground(new Color(0x2d1414));
+    // Menu card; VirtualCardGrid re-binds it to whichever item scrolls into its slot
+    private class FoodCard extends JPanel {
+        private final JLabel iconLabel = new JLabel();
+        private final JLabel name = new JLabel();
+        private final JLabel desc = new JLabel();
+        private final JLabel price = new JLabel();
+        private MenuItem item;
+
+        FoodCard() {
+            setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
+            setBorder(BorderFactory.createCompoundBorder(
+                    BorderFactory.createLineBorder(new Color(0x4A0000), 2),
+                    new EmptyBorder(15, 15, 15, 15)
+            ));
+            setBackground(new Color(0x2d1414));
 
-        JLabel iconLabel = new JLabel();
-        ImageIcon iconImg = loadIcon(item.imagePath, 48);
-        if (iconImg != null) {
-            iconLabel.setIcon(iconImg);
-        } else {
-            iconLabel.setText(item.icon); // fallback emoji
-            iconLabel.setFont(new Font(APP_FONT, Font.PLAIN, 32));
+            iconLabel.setFont(AppFonts.get(Font.PLAIN, 32)); // only used by the emoji fallback
             iconLabel.setForeground(Color.WHITE);
+            iconLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
+
+            name.setForeground(Color.WHITE);
+            name.setFont(AppFonts.get(Font.BOLD, 16));
+            name.setAlignmentX(Component.LEFT_ALIGNMENT);
+
+            desc.setAlignmentX(Component.LEFT_ALIGNMENT);
+
+            price.setForeground(new Color(0xDC143C));
+            price.setFont(AppFonts.get(Font.BOLD, 20));
+            price.setAlignmentX(Component.LEFT_ALIGNMENT);
+
+            JButton add = new JButton("Add to Cart");
+            add.setAlignmentX(Component.LEFT_ALIGNMENT);
+            add.setFocusPainted(false);
+            add.setFont(AppFonts.get(Font.PLAIN, 13));
+            add.addActionListener(e -> openFoodQuantityDialog(item));
+
+            add(iconLabel);
+            add(Box.createVerticalStrut(8));
+            add(name);
+            add(Box.createVerticalStrut(6));
+            add(desc);
+            add(Box.createVerticalStrut(10));
+            add(price);
+            add(Box.createVerticalStrut(10));
+            add(add);
         }
-        iconLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
-
-        JLabel name = new JLabel(item.name);
-        name.setForeground(Color.WHITE);
-        name.setFont(new Font(APP_FONT, Font.BOLD, 16));
-        name.setAlignmentX(Component.LEFT_ALIGNMENT);
-
-        JLabel desc = new JLabel("<html><body style='width:220px;color:#cccccc;font-family:Poppins;font-size:11px;'>"
-                + item.description + "</body></html>");
-        desc.setAlignmentX(Component.LEFT_ALIGNMENT);
-
-        JLabel price = new JLabel("P" + item.price);
-        price.setForeground(new Color(0xDC143C));
-        price.setFont(new Font(APP_FONT, Font.BOLD, 20));
-        price.setAlignmentX(Component.LEFT_ALIGNMENT);
-
-        JButton add = new JButton("Add to Cart");
-        add.setAlignmentX(Component.LEFT_ALIGNMENT);
-        add.setFocusPainted(false);
-        add.setFont(new Font(APP_FONT, Font.PLAIN, 13));
-        add.addActionListener(e -> openFoodQuantityDialog(item));
-
-        card.add(iconLabel);
-        card.add(Box.createVerticalStrut(8));
-        card.add(name);
-        card.add(Box.createVerticalStrut(6));
-        card.add(desc);
-        card.add(Box.createVerticalStrut(10));
-        card.add(price);
-        card.add(Box.createVerticalStrut(10));
-        card.add(add);
-
-        return card;
-    }
 
-    private JPanel buildCreditCard(CreditItem c) {
-        JPanel card = new JPanel();
-        card.setLayout(new BoxLayout(card, BoxLayout.Y_AXIS));
-        card.setBorder(BorderFactory.createCompoundBorder(
-                BorderFactory.createLineBorder(new Color(0x8B0000), 2),
-                new EmptyBorder(20, 20, 20, 20)
-        ));
-        card.setBackground(new Color(0x2d1414));
+        void bind(MenuItem item) {
+            this.item = item;
 
-        JLabel iconLabel = new JLabel();
-        ImageIcon iconImg = loadIcon(c.imagePath, 48);
-        if (iconImg != null) {
+            ImageIcon iconImg = loadIcon(item.imagePath, 48);
             iconLabel.setIcon(iconImg);
-        } else {
-            iconLabel.setText(c.icon);
-            iconLabel.setFont(new Font(APP_FONT, Font.PLAIN, 36));
+            iconLabel.setText(iconImg != null ? null : item.icon); // fallback emoji
+
+            name.setText(item.name);
+            desc.setText("<html><body style='width:220px;color:#cccccc;font-family:Poppins;font-size:11px;'>"
+                    + item.description + "</body></html>");
+            price.setText("P" + item.price);
+        }
+    }
+
+    private class CreditCard extends JPanel {
+        private final JLabel iconLabel = new JLabel();
+        private final JLabel hours = new JLabel();
+        private final JLabel label = new JLabel();
+        private final JLabel price = new JLabel();
+        private CreditItem credit;
+
+        CreditCard() {
+            setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
+            setBorder(BorderFactory.createCompoundBorder(
+                    BorderFactory.createLineBorder(new Color(0x8B0000), 2),
+                    new EmptyBorder(20, 20, 20, 20)
+            ));
+            setBackground(new Color(0x2d1414));
+
+            iconLabel.setFont(AppFonts.get(Font.PLAIN, 36));
             iconLabel.setForeground(Color.WHITE);
+            iconLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+
+            hours.setForeground(Color.WHITE);
+            hours.setFont(AppFonts.get(Font.BOLD, 22));
+            hours.setAlignmentX(Component.CENTER_ALIGNMENT);
+
+            label.setForeground(new Color(0xcccccc));
+            label.setFont(AppFonts.get(Font.PLAIN, 12));
+            label.setAlignmentX(Component.CENTER_ALIGNMENT);
+
+            price.setForeground(Color.WHITE);
+            price.setFont(AppFonts.get(Font.BOLD, 24));
+            price.setAlignmentX(Component.CENTER_ALIGNMENT);
+
+            JButton buy = new JButton("Buy Now");
+            buy.setFocusPainted(false);
+            buy.setAlignmentX(Component.CENTER_ALIGNMENT);
+            buy.setFont(AppFonts.get(Font.PLAIN, 13));
+            buy.addActionListener(e -> buyCreditFlow(credit));
+
+            add(iconLabel);
+            add(Box.createVerticalStrut(10));
+            add(hours);
+            add(Box.createVerticalStrut(5));
+            add(label);
+            add(Box.createVerticalStrut(10));
+            add(price);
+            add(Box.createVerticalStrut(15));
+            add(buy);
         }
-        iconLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
 
-        JLabel hours = new JLabel(c.hours);
-        hours.setForeground(Color.WHITE);
-        hours.setFont(new Font(APP_FONT, Font.BOLD, 22));
-        hours.setAlignmentX(Component.CENTER_ALIGNMENT);
-
-        JLabel label = new JLabel(c.label);
-        label.setForeground(new Color(0xcccccc));
-        label.setFont(new Font(APP_FONT, Font.PLAIN, 12));
-        label.setAlignmentX(Component.CENTER_ALIGNMENT);
-
-        JLabel price = new JLabel("P" + c.price);
-        price.setForeground(Color.WHITE);
-        price.setFont(new Font(APP_FONT, Font.BOLD, 24));
-        price.setAlignmentX(Component.CENTER_ALIGNMENT);
-
-        JButton buy = new JButton("Buy Now");
-        buy.setFocusPainted(false);
-        buy.setAlignmentX(Component.CENTER_ALIGNMENT);
-        buy.setFont(new Font(APP_FONT, Font.PLAIN, 13));
-        buy.addActionListener(e -> buyCreditFlow(c));
-
-        card.add(iconLabel);
-        card.add(Box.createVerticalStrut(10));
-        card.add(hours);
-        card.add(Box.createVerticalStrut(5));
-        card.add(label);
-        card.add(Box.createVerticalStrut(10));
-        card.add(price);
-        card.add(Box.createVerticalStrut(15));
-        card.add(buy);
-
-        return card;
+        void bind(CreditItem c) {
+            this.credit = c;
+
+            ImageIcon iconImg = loadIcon(c.imagePath, 48);
+            iconLabel.setIcon(iconImg);
+            iconLabel.setText(iconImg != null ? null : c.icon);
+
+            hours.setText(c.hours);
+            label.setText(c.label);
+            price.setText("P" + c.price);
+        }
     }
 
     // ---------- FOOD FLOW (Add to Cart popup) ----------
     private void openFoodQuantityDialog(MenuItem item) {
         // Quantity spinner
-        JSpinner qtySpinner = new JSpinner(new SpinnerNumberModel(1, 1, 99, 1));
-        qtySpinner.setFont(new Font(APP_FONT, Font.PLAIN, 13));
+        JSpinner qtySpinner = new JSpinner(new SpinnerNumberModel(1, 1, OrderingService.MAX_QUANTITY, 1));
+        qtySpinner.setFont(AppFonts.get(Font.PLAIN, 13));
 
         // Labels – black on white
         JLabel nameLabel = new JLabel(item.name);
-        nameLabel.setFont(new Font(APP_FONT, Font.BOLD, 14));
+        nameLabel.setFont(AppFonts.get(Font.BOLD, 14));
         nameLabel.setForeground(Color.BLACK);
 
         JLabel priceLabel = new JLabel("Price: P" + item.price);
-        priceLabel.setFont(new Font(APP_FONT, Font.PLAIN, 13));
+        priceLabel.setFont(AppFonts.get(Font.PLAIN, 13));
         priceLabel.setForeground(Color.BLACK);
 
         JLabel qtyLabel = new JLabel("Quantity:");
-        qtyLabel.setFont(new Font(APP_FONT, Font.PLAIN, 13));
+        qtyLabel.setFont(AppFonts.get(Font.PLAIN, 13));
         qtyLabel.setForeground(Color.BLACK);
 
         JLabel totalLabel = new JLabel("Total: P" + item.price);
-        totalLabel.setFont(new Font(APP_FONT, Font.PLAIN, 13));
+        totalLabel.setFont(AppFonts.get(Font.PLAIN, 13));
         totalLabel.setForeground(Color.BLACK);
 
         qtySpinner.addChangeListener(e -> {
@@ -607,22 +756,23 @@ public class CyberEatDiriApp {
 
         if (result == JOptionPane.OK_OPTION) {
             int q = (int) qtySpinner.getValue();
-            cart.add(new CartItem(
-                    System.currentTimeMillis(),
-                    item.icon,
-                    item.name,
-                    item.imagePath,
-                    item.price,
-                    q
-            ));
-            updateCartButton();
+            if (!ordering.addToCart(cart, item.sku, q)) {
+                JOptionPane.showMessageDialog(
+                        frame,
+                        "You can order at most " + OrderingService.MAX_QUANTITY + " of one item.\n"
+                                + "Your cart already has " + cart.getQuantity(item.sku) + "x " + item.name + ".",
+                        "Add to Cart",
+                        JOptionPane.WARNING_MESSAGE
+                );
+                return;
+            }
             showToast(q + "x " + item.name + " added to cart!");
         }
     }
 
     // ---------- CREDIT FLOW ----------
     private void buyCreditFlow(CreditItem c) {
-        String[] methods = {"GCash", "PayPal", "Cash on Hand"};
+        String[] methods = OrderingService.PAYMENT_METHODS.toArray(new String[0]);
         String method = (String) JOptionPane.showInputDialog(
                 frame,
                 "Choose payment method for " + c.hours + " (P" + c.price + "):",
@@ -649,7 +799,91 @@ public class CyberEatDiriApp {
 
             // 🔹 Add game time based on the credit purchased
             addGameTimeFromCredit(c);
+            saveCreditPurchase(c, method);
+        }
+    }
+
+    // Credit sales are orders too (one line per pack) so they show in Order History
+    private void saveCreditPurchase(CreditItem c, String method) {
+        String pc = userPcNumber.isEmpty() ? OrderingService.NO_PC : userPcNumber;
+        Order order = OrderingService.creditOrder(c, pc, method);
+
+        if (!UserSession.isLoggedIn()) {
+            historyModel.addLocalOrder(order);
+            return;
         }
+        order.userId = UserSession.getCurrentUserId();
+        order.clientRef = java.util.UUID.randomUUID().toString();
+
+        DbExecutor.supply(() -> creditDb.purchase(order)).whenCompleteAsync((saved, ex) -> {
+            if (ex != null || !saved) {
+                historyModel.addLocalOrder(order);
+                JOptionPane.showMessageDialog(
+                        frame,
+                        "Your credits were added but the purchase could not be saved to your history.",
+                        "Database Error",
+                        JOptionPane.ERROR_MESSAGE
+                );
+                return;
+            }
+            lastCreditOrder = order;
+            lastCreditItem = c;
+            loadOrderHistoryForCurrentUser();
+        }, DbExecutor.EDT);
+    }
+
+    // Refunds the newest pack bought this login, if none of its time has been used yet
+    private void refundLastCredit() {
+        Order order = lastCreditOrder;
+        CreditItem c = lastCreditItem;
+        if (order == null || !UserSession.isLoggedIn()) {
+            JOptionPane.showMessageDialog(frame, "There is no credit purchase to refund.",
+                    "Refund", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        long seconds = c.seconds;
+        if (gameClock.getRemainingSeconds() < seconds) {
+            JOptionPane.showMessageDialog(frame, "Part of your " + c.hours + " has already been used, so it can't be refunded.",
+                    "Refund", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        int confirm = JOptionPane.showConfirmDialog(
+                frame,
+                "Refund " + c.hours + " (P" + order.total + ")?\n\nIts time is taken off your session.",
+                "Refund",
+                JOptionPane.OK_CANCEL_OPTION
+        );
+        if (confirm != JOptionPane.OK_OPTION) {
+            return;
+        }
+
+        int userId = UserSession.getCurrentUserId();
+        long remaining = gameClock.getRemainingSeconds();
+
+        // usage first, so the balance the refund checks is the time actually left
+        java.util.concurrent.CompletableFuture.supplyAsync(() -> {
+            creditDb.recordUsage(userId, remaining);
+            return creditDb.refund(userId, order.id);
+        }, sessionWrites).whenCompleteAsync((refunded, ex) -> {
+            if (ex != null || !refunded) {
+                JOptionPane.showMessageDialog(
+                        frame,
+                        "The refund could not be saved. Please call staff.",
+                        "Database Error",
+                        JOptionPane.ERROR_MESSAGE
+                );
+                return;
+            }
+            if (lastCreditOrder == order) {
+                lastCreditOrder = null;
+                lastCreditItem = null;
+            }
+            purchasedSeconds = Math.max(0, purchasedSeconds - seconds);
+            gameClock.take(seconds);
+            checkpointGameSession();
+            showSuccessDialog(c.hours + " refunded: P" + order.total + " will be returned to you.");
+        }, DbExecutor.EDT);
     }
 
     // ---------- CART DIALOG (no logo column) ----------
@@ -659,22 +893,14 @@ public class CyberEatDiriApp {
         dialog.setLocationRelativeTo(frame);
         dialog.setLayout(new BorderLayout());
 
-        DefaultTableModel model = new DefaultTableModel(
-                new Object[]{"Name", "Qty", "Unit", "Total"},
-                0
-        ) {
-            public boolean isCellEditable(int row, int col) {
-                return false;
-            }
-        };
+        // Follows the cart line by line; no rebuild after each change
+        CartTableModel model = new CartTableModel(cart);
 
         JTable table = new JTable(model);
-        table.setFont(new Font(APP_FONT, Font.PLAIN, 12));
-        table.getTableHeader().setFont(new Font(APP_FONT, Font.BOLD, 12));
+        table.setFont(AppFonts.get(Font.PLAIN, 12));
+        table.getTableHeader().setFont(AppFonts.get(Font.BOLD, 12));
         table.setRowHeight(24);
 
-        refreshCartTable(model);
-
         JScrollPane scroll = new JScrollPane(table);
 
         JPanel bottom = new JPanel(new BorderLayout());
@@ -682,19 +908,21 @@ public class CyberEatDiriApp {
 
         JPanel inputs = new JPanel(new GridLayout(0, 1, 5, 5));
         JTextField pcField = new JTextField(userPcNumber);
-        pcField.setFont(new Font(APP_FONT, Font.PLAIN, 13));
+        pcField.setFont(AppFonts.get(Font.PLAIN, 13));
         JTextArea requestArea = new JTextArea(userSpecialRequest, 3, 20);
         requestArea.setLineWrap(true);
         requestArea.setWrapStyleWord(true);
-        requestArea.setFont(new Font(APP_FONT, Font.PLAIN, 13));
+        requestArea.setFont(AppFonts.get(Font.PLAIN, 13));
 
         inputs.add(simpleLabel("PC Number:", Font.PLAIN, 13));
         inputs.add(pcField);
         inputs.add(simpleLabel("Special Request:", Font.PLAIN, 13));
         inputs.add(new JScrollPane(requestArea));
 
-        JLabel totalLabel = new JLabel("Total: P" + getCartTotal());
-        totalLabel.setFont(new Font(APP_FONT, Font.BOLD, 16));
+        JLabel totalLabel = new JLabel("Total: P" + cart.getTotal());
+        totalLabel.setFont(AppFonts.get(Font.BOLD, 16));
+        Runnable updateTotal = () -> totalLabel.setText("Total: P" + cart.getTotal());
+        cart.addChangeListener(updateTotal);
 
         JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         JButton removeBtn = simpleButton("Remove Selected");
@@ -703,22 +931,14 @@ public class CyberEatDiriApp {
 
         removeBtn.addActionListener(e -> {
             int row = table.getSelectedRow();
-            if (row < 0) {
+            if (row < 0 || cart.isEmpty()) {
                 JOptionPane.showMessageDialog(dialog, "Select an item to remove.");
                 return;
             }
             cart.remove(row);
-            refreshCartTable(model);
-            updateCartButton();
-            totalLabel.setText("Total: P" + getCartTotal());
         });
 
-        clearBtn.addActionListener(e -> {
-            cart.clear();
-            refreshCartTable(model);
-            updateCartButton();
-            totalLabel.setText("Total: P" + getCartTotal());
-        });
+        clearBtn.addActionListener(e -> cart.clear());
 
         checkoutBtn.addActionListener(e -> {
             userPcNumber = pcField.getText().trim();
@@ -729,10 +949,7 @@ public class CyberEatDiriApp {
                 return;
             }
 
-            openCheckoutConfirm(dialog);
-            refreshCartTable(model);
-            updateCartButton();
-            totalLabel.setText("Total: P" + getCartTotal());
+            openCheckoutConfirm(dialog, checkoutBtn);
         });
 
         buttons.add(removeBtn);
@@ -753,6 +970,71 @@ public class CyberEatDiriApp {
         dialog.add(bottom, BorderLayout.SOUTH);
 
         dialog.setVisible(true);
+
+        // modal: the dialog is closed once setVisible returns
+        model.detach();
+        cart.removeChangeListener(updateTotal);
+    }
+
+    // ---------- HISTORY SEARCH ----------
+
+    // Search box over the history; queries run once typing pauses for SEARCH_DELAY_MS
+    private JPanel buildHistorySearchBar() {
+        JPanel bar = new JPanel(new BorderLayout(8, 0));
+        bar.setOpaque(false);
+        bar.setBorder(new EmptyBorder(10, 0, 0, 0));
+
+        JLabel label = new JLabel("Search items:");
+        label.setForeground(Color.WHITE);
+        label.setFont(AppFonts.get(Font.PLAIN, 13));
+
+        historySearchField = new JTextField();
+        historySearchField.setFont(AppFonts.get(Font.PLAIN, 13));
+        historySearchField.setToolTipText("e.g. cookie combo");
+
+        javax.swing.Timer debounce = new javax.swing.Timer(SEARCH_DELAY_MS, e -> runHistorySearch());
+        debounce.setRepeats(false);
+        historySearchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            @Override
+            public void insertUpdate(javax.swing.event.DocumentEvent e) {
+                debounce.restart();
+            }
+
+            @Override
+            public void removeUpdate(javax.swing.event.DocumentEvent e) {
+                debounce.restart();
+            }
+
+            @Override
+            public void changedUpdate(javax.swing.event.DocumentEvent e) {
+            }
+        });
+
+        bar.add(label, BorderLayout.WEST);
+        bar.add(historySearchField, BorderLayout.CENTER);
+        return bar;
+    }
+
+    private void runHistorySearch() {
+        String text = historySearchField.getText().trim();
+        int gen = ++searchGeneration;
+
+        if (text.isEmpty() || !UserSession.isLoggedIn()) {
+            historyModel.clearSearch();
+            return;
+        }
+
+        int userId = UserSession.getCurrentUserId();
+        DbExecutor.supply(() -> orderDb.searchOrders(userId, text, SEARCH_LIMIT)).whenCompleteAsync((found, ex) -> {
+            if (gen != searchGeneration) {
+                return; // the user kept typing; a newer search is on its way
+            }
+            if (ex != null) {
+                System.out.println("Error searching orders: " + DbExecutor.cause(ex).getMessage());
+                return;
+            }
+            historyModel.showSearchResults(found);
+        }, DbExecutor.EDT);
     }
 
     // Load orders from DB for whoever is currently logged in
@@ -767,36 +1049,118 @@ public class CyberEatDiriApp {
             return;
         }
 
+        // Counts rows off the EDT; the pages themselves load as the table scrolls
+        historyModel.refresh();
+        if (historySearchField != null && !historySearchField.getText().trim().isEmpty()) {
+            runHistorySearch(); // new orders may match the current search
+        }
+    }
+
+    // ---------- ORDER STATUS ----------
+
+    // Live status for the logged-in user: the feed (remote only) plus this process's bus
+    private void watchOrderStatus() {
+        if (!UserSession.isLoggedIn()) {
+            return;
+        }
         int userId = UserSession.getCurrentUserId();
+        OrderEventBus.subscribe(statusListener);
+        statusFeed = orderDb.watchStatus(userId);
+
+        // orders still with the kitchen from before this login; the feed only reports changes
+        DbExecutor.supply(() -> orderDb.getOrdersPage(userId, Long.MAX_VALUE, STATUS_RECENT_ORDERS))
+                .whenCompleteAsync((recent, ex) -> {
+                    if (ex != null) {
+                        System.out.println("Error loading order status: " + DbExecutor.cause(ex).getMessage());
+                        return;
+                    }
+                    for (Order o : recent) {
+                        // a DELIVERED push that arrived before this read is newer than it
+                        if (o.status.isOpen() && !deliveredOrders.contains(o.id)) {
+                            openOrders.merge(o.id, o.status, CyberEatDiriApp::laterStatus);
+                        }
+                    }
+                    updateStatusBadge(null);
+                }, DbExecutor.EDT);
+    }
+
+    private void stopWatchingOrderStatus() {
+        OrderEventBus.unsubscribe(statusListener);
+        if (statusFeed != null) {
+            statusFeed.close();
+            statusFeed = null;
+        }
+        badgeHideTimer.stop();
+    }
 
-        java.util.List<Order> orders = orderDb.getOrdersForUser(userId);
+    // One pushed change: the history row (if loaded) and the badge; never a reload
+    private void applyOrderStatus(long orderId, OrderStatus status) {
+        if (historyModel != null) {
+            historyModel.updateStatus(orderId, status);
+        }
 
-        // clear in-memory list + table, then repopulate
-        orderHistory.clear();
-        historyModel.setRowCount(0);
+        if (status.isOpen()) {
+            if (!deliveredOrders.contains(orderId)) {
+                openOrders.merge(orderId, status, CyberEatDiriApp::laterStatus);
+                updateStatusBadge(null);
+            }
+        } else {
+            deliveredOrders.add(orderId);
+            if (openOrders.remove(orderId) != null) {
+                updateStatusBadge(orderId);
+            }
+        }
+    }
+
+    private static OrderStatus laterStatus(OrderStatus a, OrderStatus b) {
+        return a.ordinal() >= b.ordinal() ? a : b;
+    }
+
+    // Newest open order, or (deliveredId) the one that just arrived, for a minute
+    private void updateStatusBadge(Long deliveredId) {
+        if (statusBadge == null) {
+            return;
+        }
+        badgeHideTimer.stop();
+
+        if (!openOrders.isEmpty()) {
+            java.util.Map.Entry<Long, OrderStatus> newest = openOrders.lastEntry();
+            String more = openOrders.size() > 1 ? " (+" + (openOrders.size() - 1) + " more)" : "";
+            showStatusBadge("Order #" + newest.getKey() + ": " + newest.getValue().label + more, newest.getValue());
+        } else if (deliveredId != null) {
+            showStatusBadge("Order #" + deliveredId + ": " + OrderStatus.DELIVERED.label, OrderStatus.DELIVERED);
+            badgeHideTimer.restart();
+        } else {
+            statusBadge.setVisible(false);
+        }
+    }
 
-        for (Order order : orders) {
-            orderHistory.add(order);
-            addOrderToHistoryTable(order);
+    private void showStatusBadge(String text, OrderStatus status) {
+        switch (status) {
+            case QUEUED:    statusBadge.setBackground(new Color(0xFFC107)); break;
+            case PREPARING: statusBadge.setBackground(new Color(0xFF8C00)); break;
+            default:        statusBadge.setBackground(new Color(0x2E7D32)); break;
         }
+        statusBadge.setForeground(status == OrderStatus.DELIVERED ? Color.WHITE : Color.BLACK);
+        statusBadge.setText(text);
+        statusBadge.setVisible(true);
     }
 
-    private void openCheckoutConfirm(JDialog parentDialog) {
+    private void openCheckoutConfirm(JDialog parentDialog, JButton checkoutButton) {
         StringBuilder itemsText = new StringBuilder();
-        int itemCount = 0;
+        int itemCount = cart.getItemCount();
 
         for (CartItem c : cart) {
             itemsText.append(c.name)
                     .append(" x").append(c.quantity)
                     .append(" = P").append(c.getTotal())
                     .append("\n");
-            itemCount += c.quantity;
         }
 
-        String pc = userPcNumber.isEmpty() ? "Not specified" : userPcNumber;
+        String pc = userPcNumber.isEmpty() ? OrderingService.NO_PC : userPcNumber;
         String req = userSpecialRequest.isEmpty() ? "(none)" : userSpecialRequest;
 
-        String[] methods = {"GCash", "PayPal", "Cash on Hand"};
+        String[] methods = OrderingService.PAYMENT_METHODS.toArray(new String[0]);
         String paymentMethod = (String) JOptionPane.showInputDialog(
                 parentDialog,
                 "Choose payment method for this order:",
@@ -815,7 +1179,7 @@ public class CyberEatDiriApp {
                         "Special Request: " + req + "\n" +
                         "Payment: " + paymentMethod + "\n\n" +
                         "Items:\n" + itemsText +
-                        "\nTOTAL: P" + getCartTotal() + "\n\n" +
+                        "\nTOTAL: P" + cart.getTotal() + "\n\n" +
                         "Confirm purchase?";
 
         int confirm = JOptionPane.showConfirmDialog(
@@ -826,79 +1190,61 @@ public class CyberEatDiriApp {
         );
 
         if (confirm == JOptionPane.OK_OPTION) {
-            int totalAmount = getCartTotal();
-            showSuccessDialog("Purchase confirmed! " + itemCount + " items for P" + totalAmount + ".");
-
-            String time = new SimpleDateFormat("yyyy-MM-dd HH:mm").format(new Date());
-            Order order = new Order(time, itemsText.toString().trim(), totalAmount, pc, paymentMethod);
-
-            // In-memory history
-            orderHistory.add(order);
-            addOrderToHistoryTable(order);
-
-            // 🔹 Persist this order for the currently logged-in user (if any)
-            if (UserSession.isLoggedIn()) {
-                int userId = UserSession.getCurrentUserId();
-                orderDb.insertOrder(
-                        userId,
-                        order.time,
-                        order.itemsSummary,
-                        order.total,
-                        order.pcNumber,
-                        order.paymentMethod
-                );
+            int confirmedCount = itemCount;
+            Order order = ordering.takeOrder(cart, pc, paymentMethod); // also empties the cart
+
+            // Guests have nothing to persist
+            if (!UserSession.isLoggedIn()) {
+                completeCheckout(order, confirmedCount);
+                return;
             }
 
-            cart.clear();
-        }
-    }
+            // 🔹 Persist this order for the currently logged-in user.
+            // OrderWriter journals it (durable once this returns) and inserts it in the background;
+            // the history table refreshes when the batch commits (see orderCommitListener).
+            int userId = UserSession.getCurrentUserId();
+            Runnable doneLoading = DbExecutor.busy(checkoutButton, "Saving order...");
+
+            DbExecutor.run(() -> {
+                try {
+                    ordering.submit(order, userId);
+                } catch (java.io.IOException e) {
+                    throw new java.io.UncheckedIOException(e);
+                }
+            }).whenCompleteAsync((ignored, ex) -> {
+                doneLoading.run();
+                if (ex != null) {
+                    System.out.println("Error journaling order: " + DbExecutor.cause(ex).getMessage());
+                    JOptionPane.showMessageDialog(
+                            frame,
+                            "Your order was confirmed but could not be saved to your history.",
+                            "Database Error",
+                            JOptionPane.ERROR_MESSAGE
+                    );
+                    completeCheckout(order, confirmedCount);
+                    return;
+                }
 
-    private void addOrderToHistoryTable(Order order) {
-        if (historyModel != null) {
-            historyModel.addRow(new Object[]{
-                    order.time,
-                    order.itemsSummary,
-                    order.total,
-                    order.pcNumber,
-                    order.paymentMethod
-            });
+                showSuccessDialog("Purchase confirmed! " + confirmedCount + " items for P" + order.total + ".");
+            }, DbExecutor.EDT);
         }
     }
 
-    private void refreshCartTable(DefaultTableModel model) {
-        model.setRowCount(0);
-
-        if (cart.isEmpty()) {
-            model.addRow(new Object[]{"Your cart is empty", "", "", ""});
-            return;
-        }
+    // Order that only lives in memory (guest checkout or failed save)
+    private void completeCheckout(Order order, int itemCount) {
+        historyModel.addLocalOrder(order);
 
-        for (CartItem c : cart) {
-            model.addRow(new Object[]{
-                    c.name,
-                    c.quantity,
-                    "P" + c.unitPrice,
-                    "P" + c.getTotal()
-            });
-        }
+        showSuccessDialog("Purchase confirmed! " + itemCount + " items for P" + order.total + ".");
     }
 
     // ---------- HELPERS ----------
     private void updateCartButton() {
-        int totalItems = 0;
-        for (CartItem c : cart) totalItems += c.quantity;
-        cartButton.setText("Cart [" + totalItems + "]");
-    }
-
-    private int getCartTotal() {
-        int total = 0;
-        for (CartItem c : cart) total += c.getTotal();
-        return total;
+        cartButton.setText("Cart [" + cart.getItemCount() + "]");
     }
 
     private void showToast(String msg) {
-        UIManager.put("OptionPane.messageFont", new Font(APP_FONT, Font.PLAIN, 13));
-        UIManager.put("OptionPane.buttonFont", new Font(APP_FONT, Font.PLAIN, 12));
+        UIManager.put("OptionPane.messageFont", AppFonts.get(Font.PLAIN, 13));
+        UIManager.put("OptionPane.buttonFont", AppFonts.get(Font.PLAIN, 12));
         JOptionPane.showMessageDialog(frame, msg);
     }
 
@@ -926,37 +1272,21 @@ public class CyberEatDiriApp {
 
     private JLabel simpleLabel(String text, int style, int size) {
         JLabel label = new JLabel(text);
-        label.setFont(new Font(APP_FONT, style, size));
+        label.setFont(AppFonts.get(style, size));
         label.setForeground(Color.BLACK);  // so it’s readable on default light panels
         return label;
     }
 
     private JButton simpleButton(String text) {
         JButton button = new JButton(text);
-        button.setFont(new Font(APP_FONT, Font.PLAIN, 13));
+        button.setFont(AppFonts.get(Font.PLAIN, 13));
         button.setFocusPainted(false);
         return button;
     }
 
-    // Load and scale an icon from file path
+    // Load and scale an icon from file path (decoded once per size, see IconCache)
     private ImageIcon loadIcon(String path, int size) {
-        if (path == null || path.isEmpty()) return null;
-
-        // Look up the image as a classpath resource
-        java.net.URL url = getClass().getResource(path);
-        if (url == null) {
-            System.out.println("Image resource NOT found: " + path);
-            return null;
-        }
-
-        ImageIcon raw = new ImageIcon(url);
-        if (raw.getIconWidth() <= 0 || raw.getIconHeight() <= 0) {
-            System.out.println("Failed to load image (bad size): " + path);
-            return null;
-        }
-
-        Image scaled = raw.getImage().getScaledInstance(size, size, Image.SCALE_SMOOTH);
-        return new ImageIcon(scaled);
+        return IconCache.get(path, size);
     }
 
     // Format seconds as HH:MM:SS
@@ -970,54 +1300,115 @@ public class CyberEatDiriApp {
 
     // Called whenever we add time from a CreditItem (1 Hour, 3 Hours, etc.)
     private void addGameTimeFromCredit(CreditItem c) {
-        int hoursToAdd = 0;
-        try {
-            String first = c.hours.split(" ")[0].trim(); // "1", "3", "5", "10"
-            hoursToAdd = Integer.parseInt(first);
-        } catch (Exception ex) {
-            hoursToAdd = 1; // safe fallback
-        }
-        long secondsToAdd = hoursToAdd * 60L * 60L;
-        addGameTime(secondsToAdd);
+        addGameTime(c.seconds);
     }
 
-    // Core timer logic: add seconds and start/restart timer
+    // Core timer logic: extends the session deadline (the label follows on its own)
     private void addGameTime(long secondsToAdd) {
         if (secondsToAdd <= 0) return;
 
-        remainingSeconds += secondsToAdd;
-        updateTimerLabel();
+        if (!gameClock.isRunning()) {
+            purchasedSeconds = 0; // new session
+        }
+        purchasedSeconds += secondsToAdd;
+        gameClock.add(secondsToAdd);
+        checkpointGameSession();
+    }
 
-        if (gameTimer == null) {
-            gameTimer = new javax.swing.Timer(1000, e -> {
-                if (remainingSeconds > 0) {
-                    remainingSeconds--;
-                    updateTimerLabel();
-                } else {
-                    handleTimeFinished();
-                }
-            });
+    // Writes the session's absolute end time; only when it changes (purchase) and on logout
+    private void checkpointGameSession() {
+        if (!UserSession.isLoggedIn() || !gameClock.isRunning()) {
+            return;
         }
+        int userId = UserSession.getCurrentUserId();
+        long purchased = purchasedSeconds;
+        long endsAt = gameClock.getEndsAtEpochMillis();
 
-        if (!gameTimer.isRunning()) {
-            gameTimer.start();
+        sessionWrites.execute(() -> sessionDb.save(userId, purchased, endsAt));
+    }
+
+    // Moves the time used since the last call from the credit balance into a consume entry
+    private void recordCreditUsage() {
+        if (!UserSession.isLoggedIn()) {
+            return;
         }
+        int userId = UserSession.getCurrentUserId();
+        long remaining = gameClock.getRemainingSeconds();
+
+        sessionWrites.execute(() -> creditDb.recordUsage(userId, remaining));
     }
 
-    // Update the label in the Game Credits tab
-    private void updateTimerLabel() {
-        if (timeRemainingLabel != null) {
-            timeRemainingLabel.setText("Remaining Time: " + formatTime(remainingSeconds));
+    // Picks up time bought earlier (before a logout, crash or reboot) where it should be now
+    private void restoreGameSession() {
+        if (!UserSession.isLoggedIn()) {
+            return;
         }
+        int userId = UserSession.getCurrentUserId();
+
+        java.util.concurrent.CompletableFuture.supplyAsync(() -> sessionDb.load(userId), sessionWrites).whenCompleteAsync((saved, ex) -> {
+            if (ex != null) {
+                System.out.println("Error restoring game session: " + DbExecutor.cause(ex).getMessage());
+                return;
+            }
+            if (userId != UserSession.getCurrentUserId()) {
+                return;
+            }
+            if (saved == null) {
+                resumeUnsavedCredits(userId);
+                return;
+            }
+
+            long endsAt = saved[1];
+            if (endsAt <= System.currentTimeMillis()) {
+                sessionWrites.execute(() -> sessionDb.delete(userId)); // ran out while the app was closed
+                recordCreditUsage();
+                return;
+            }
+
+            boolean alreadyRunning = gameClock.isRunning(); // time bought before this load finished
+            purchasedSeconds = alreadyRunning ? purchasedSeconds + saved[0] : saved[0];
+            gameClock.resume(endsAt);
+            if (alreadyRunning) {
+                checkpointGameSession();
+            }
+            recordCreditUsage(); // time that ran while logged out
+            System.out.println("Restored game session: " + formatTime(gameClock.getRemainingSeconds()) + " left");
+        }, DbExecutor.EDT);
     }
 
-    // What happens when the countdown hits 0
+    /**
+     * No session row. Normally nothing is left: the balance was used up and is written off. But a
+     * purchase whose checkpoint never landed (app closed right after buying) is still in the
+     * materialized balance (one primary-key read), so that time is resumed instead of lost.
+     */
+    private void resumeUnsavedCredits(int userId) {
+        DbExecutor.supply(() -> creditDb.getBalance(userId)).whenCompleteAsync((balance, ex) -> {
+            if (ex != null) {
+                System.out.println("Error loading credit balance: " + DbExecutor.cause(ex).getMessage());
+                return;
+            }
+            if (userId != UserSession.getCurrentUserId()) {
+                return;
+            }
+            // if time was bought meanwhile, the balance includes it and the clock already has it
+            if (balance != null && balance[0] > 0 && !gameClock.isRunning()) {
+                purchasedSeconds = balance[0];
+                gameClock.add(balance[0]);
+                checkpointGameSession();
+                System.out.println("Resumed " + formatTime(balance[0]) + " of unsaved game time from the credit balance");
+            }
+            recordCreditUsage();
+        }, DbExecutor.EDT);
+    }
+
+    // What happens when the countdown hits 0 (called by gameClock, label already shows 00:00:00)
     private void handleTimeFinished() {
-        if (gameTimer != null) {
-            gameTimer.stop();
+        purchasedSeconds = 0;
+        if (UserSession.isLoggedIn()) {
+            int userId = UserSession.getCurrentUserId();
+            sessionWrites.execute(() -> sessionDb.delete(userId));
         }
-        remainingSeconds = 0;
-        updateTimerLabel();
+        recordCreditUsage();
 
         JOptionPane.showMessageDialog(
                 frame,
@@ -1029,97 +1420,764 @@ public class CyberEatDiriApp {
 
     // ================= ORDER DB HELPER (inside CyberEatDiriApp) =================
 
-    private static class OrderDatabaseHelper {
-        private static final String DB_URL = "jdbc:sqlite:cybereatdiri_users.db";
+    static class OrderDatabaseHelper implements OrderStore {
+        // A replayed journal entry that already made it in is skipped; any other constraint still fails
+        static final String SQL_INSERT_ORDER = "INSERT INTO orders(user_id, order_time, items_summary, total, pc_number, payment_method, client_ref, order_ts, status) " +
+                "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT(client_ref) DO NOTHING";
+
+        static final String SQL_ID_FOR_REF = "SELECT id FROM orders WHERE client_ref = ?";
+
+        static final String SQL_COUNT_FOR_USER = "SELECT COUNT(*) FROM orders WHERE user_id = ?";
+
+        // What readOrders expects, in every order SELECT
+        static final String COLUMNS = "id, user_id, order_ts, items_summary, total, pc_number, payment_method, status";
+
+        static final String SQL_PAGE_FOR_USER = "SELECT " + COLUMNS + " " +
+                "FROM orders WHERE user_id = ? AND id < ? ORDER BY id DESC LIMIT ?";
+
+        static final String SQL_ID_AFTER = "SELECT id FROM orders WHERE user_id = ? AND id < ? " +
+                "ORDER BY id DESC LIMIT 1 OFFSET ?";
+
+        static final String SQL_INSERT_ITEM = "INSERT INTO order_items(order_id, sku, name, qty, unit_price) " +
+                "VALUES(?, ?, ?, ?, ?)";
+
+        // Items for one history page: the user's orders with lowId <= id < beforeId
+        static final String SQL_ITEMS_FOR_PAGE = "SELECT oi.order_id, oi.sku, oi.name, oi.qty, oi.unit_price " +
+                "FROM orders o JOIN order_items oi ON oi.order_id = o.id " +
+                "WHERE o.user_id = ? AND o.id < ? AND o.id >= ?";
+
+        // Orders placed in [from, to), newest first: one user's, or the whole shop's
+        static final String SQL_RANGE_FOR_USER = "SELECT " + COLUMNS + " " +
+                "FROM orders WHERE user_id = ? AND order_ts >= ? AND order_ts < ? ORDER BY order_ts DESC LIMIT ?";
+
+        static final String SQL_RANGE_ALL = "SELECT " + COLUMNS + " " +
+                "FROM orders WHERE order_ts >= ? AND order_ts < ? ORDER BY order_ts DESC LIMIT ?";
+
+        static final String SQL_ITEMS_FOR_ID_RANGE = "SELECT order_id, sku, name, qty, unit_price " +
+                "FROM order_items WHERE order_id >= ? AND order_id <= ?";
+
+        // Full-text match over what was ordered (orders_fts), newest first
+        static final String SQL_SEARCH_FOR_USER = "SELECT o.id, o.user_id, o.order_ts, o.items_summary, o.total, o.pc_number, o.payment_method, o.status " +
+                "FROM orders_fts JOIN orders o ON o.id = orders_fts.rowid " +
+                "WHERE orders_fts MATCH ? AND o.user_id = ? ORDER BY orders_fts.rowid DESC LIMIT ?";
+
+        static final String SQL_SALES_FOR_SKU = "SELECT COALESCE(SUM(qty), 0), COALESCE(SUM(qty * unit_price), 0) " +
+                "FROM order_items WHERE sku = ?";
+
+        static final String SQL_UPDATE_STATUS = "UPDATE orders SET status = ? WHERE id = ?";
+
+        // Orders the kitchen still has to cook or deliver, oldest first (partial index idx_orders_open)
+        static final String SQL_OPEN_ORDERS = "SELECT " + COLUMNS + " " +
+                "FROM orders WHERE status <> 'delivered' ORDER BY id LIMIT ?";
+
+        // Same orders and the same LIMIT as SQL_OPEN_ORDERS, so only their lines are read
+        static final String SQL_ITEMS_FOR_OPEN = "SELECT order_id, sku, name, qty, unit_price " +
+                "FROM order_items WHERE order_id IN " +
+                "(SELECT id FROM orders WHERE status <> 'delivered' ORDER BY id LIMIT ?)";
+
+        // Every statement above; QueryPlanCheck verifies none of them scans a table
+        static final String[] QUERIES = {
+                SQL_INSERT_ORDER,
+                SQL_ID_FOR_REF,
+                SQL_COUNT_FOR_USER,
+                SQL_PAGE_FOR_USER,
+                SQL_ID_AFTER,
+                SQL_INSERT_ITEM,
+                SQL_ITEMS_FOR_PAGE,
+                SQL_RANGE_FOR_USER,
+                SQL_RANGE_ALL,
+                SQL_ITEMS_FOR_ID_RANGE,
+                SQL_SEARCH_FOR_USER,
+                SQL_SALES_FOR_SKU,
+                SQL_UPDATE_STATUS,
+                SQL_OPEN_ORDERS,
+                SQL_ITEMS_FOR_OPEN
+        };
 
+        // Schema setup runs once per process (SchemaMigrator); this just reports failures
+        @Override
         public void init() {
-            try {
-                // Load SQLite JDBC driver
-                Class.forName("org.sqlite.JDBC");
-            } catch (ClassNotFoundException e) {
-                System.out.println("SQLite JDBC driver not found. Make sure sqlite-jdbc.jar is on the classpath.");
+            String err = SchemaMigrator.migrate();
+            if (err != null) {
+                System.out.println("Error preparing orders table: " + err);
+            }
+        }
+
+        // Writes a batch of orders (headers + items) in one transaction; used by OrderWriter
+        @Override
+        public boolean insertOrders(java.util.List<Order> orders) {
+            java.util.List<Order> added = new java.util.ArrayList<>(orders.size());
+
+            try (Connection conn = Database.getConnection()) {
+                conn.setAutoCommit(false);
+
+                try (PreparedStatement ps = conn.prepareStatement(SQL_INSERT_ORDER, Statement.RETURN_GENERATED_KEYS);
+                     PreparedStatement itemPs = conn.prepareStatement(SQL_INSERT_ITEM)) {
+
+                    for (Order order : orders) {
+                        if (addOrder(ps, itemPs, order)) {
+                            added.add(order);
+                        }
+                    }
+                    itemPs.executeBatch();
+
+                    conn.commit();
+
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+
+            } catch (SQLException e) {
+                System.out.println("Error saving orders: " + e.getMessage());
                 e.printStackTrace();
+                return false;
             }
 
-            // Create orders table if it does not exist
-            try (Connection conn = DriverManager.getConnection(DB_URL);
-                 Statement st = conn.createStatement()) {
-
-                st.executeUpdate(
-                        "CREATE TABLE IF NOT EXISTS orders (" +
-                                "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                                "user_id INTEGER NOT NULL," +
-                                "order_time TEXT NOT NULL," +
-                                "items_summary TEXT NOT NULL," +
-                                "total INTEGER NOT NULL," +
-                                "pc_number TEXT," +
-                                "payment_method TEXT" +
-                                ");"
-                );
+            // committed and the connection is back in the pool: now the kitchen may see them
+            for (Order order : added) {
+                OrderEventBus.publish(order, OrderStatus.QUEUED);
+            }
+            return true;
+        }
+
+        /**
+         * Inserts one order header and batches its items on itemPs (caller runs executeBatch and commits).
+         * ps must be SQL_INSERT_ORDER with generated keys. Returns false if client_ref was already saved;
+         * the order then gets the id it was saved under.
+         */
+        static boolean addOrder(PreparedStatement ps, PreparedStatement itemPs, Order order) throws SQLException {
+            ps.setInt(1, order.userId);
+            ps.setString(2, order.formattedTime()); // legacy column, still NOT NULL and read by older builds
+            ps.setString(3, OrderLine.format(order.items)); // legacy column, still NOT NULL
+            ps.setInt(4, order.total);
+            ps.setString(5, order.pcNumber);
+            ps.setString(6, order.paymentMethod);
+            ps.setString(7, order.clientRef);
+            ps.setLong(8, order.timestamp);
+            ps.setString(9, order.status.dbValue);
+
+            if (ps.executeUpdate() == 0) {
+                // already saved before a crash
+                try (PreparedStatement find = ps.getConnection().prepareStatement(SQL_ID_FOR_REF)) {
+                    find.setString(1, order.clientRef);
+                    try (ResultSet rs = find.executeQuery()) {
+                        if (!rs.next()) {
+                            throw new SQLException("Order " + order.clientRef + " conflicted but was not found");
+                        }
+                        order.id = rs.getLong(1);
+                    }
+                }
+                return false;
+            }
+
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (!keys.next()) {
+                    throw new SQLException("No id returned for new order");
+                }
+                order.id = keys.getLong(1);
+            }
+
+            for (OrderLine line : order.items) {
+                itemPs.setLong(1, order.id);
+                itemPs.setString(2, line.getSku());
+                itemPs.setString(3, line.getName());
+                itemPs.setInt(4, line.getQty());
+                itemPs.setInt(5, line.getUnitPrice());
+                itemPs.addBatch();
+            }
+            return true;
+        }
+
+        @Override
+        public int countOrdersForUser(int userId) {
+            try (Connection conn = Database.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(SQL_COUNT_FOR_USER)) {
+
+                ps.setInt(1, userId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : 0;
+                }
 
             } catch (SQLException e) {
-                System.out.println("Error creating orders table: " + e.getMessage());
+                System.out.println("Error counting orders: " + e.getMessage());
                 e.printStackTrace();
+                return 0;
             }
         }
 
-        public void insertOrder(int userId,
-                                String orderTime,
-                                String itemsSummary,
-                                int total,
-                                String pcNumber,
-                                String paymentMethod) {
+        // One keyset page: orders older than beforeId, newest first
+        @Override
+        public java.util.List<Order> getOrdersPage(int userId, long beforeId, int limit) {
+            java.util.List<Order> list = new java.util.ArrayList<>();
+
+            try (Connection conn = Database.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(SQL_PAGE_FOR_USER)) {
+
+                ps.setInt(1, userId);
+                ps.setLong(2, beforeId);
+                ps.setInt(3, limit);
+
+                readOrders(ps, list);
+                if (!list.isEmpty()) {
+                    loadItems(conn, userId, list);
+                }
+
+            } catch (SQLException e) {
+                System.out.println("Error loading orders: " + e.getMessage());
+                e.printStackTrace();
+            }
+
+            return list;
+        }
 
-            String sql = "INSERT INTO orders(user_id, order_time, items_summary, total, pc_number, payment_method) " +
-                    "VALUES(?, ?, ?, ?, ?, ?)";
+        /** A user's orders placed in [fromMillis, toMillis), newest first, at most limit. */
+        @Override
+        public java.util.List<Order> getOrdersBetween(int userId, long fromMillis, long toMillis, int limit) {
+            java.util.List<Order> list = new java.util.ArrayList<>();
 
-            try (Connection conn = DriverManager.getConnection(DB_URL);
-                 PreparedStatement ps = conn.prepareStatement(sql)) {
+            try (Connection conn = Database.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(SQL_RANGE_FOR_USER)) {
 
                 ps.setInt(1, userId);
-                ps.setString(2, orderTime);
-                ps.setString(3, itemsSummary);
-                ps.setInt(4, total);
-                ps.setString(5, pcNumber);
-                ps.setString(6, paymentMethod);
+                ps.setLong(2, fromMillis);
+                ps.setLong(3, toMillis);
+                ps.setInt(4, limit);
 
-                ps.executeUpdate();
+                readOrders(ps, list);
+                if (!list.isEmpty()) {
+                    loadItems(conn, userId, list);
+                }
 
             } catch (SQLException e) {
-                System.out.println("Error saving order: " + e.getMessage());
+                System.out.println("Error loading orders by date: " + e.getMessage());
                 e.printStackTrace();
             }
+
+            return list;
         }
 
-        public java.util.List<Order> getOrdersForUser(int userId) {
+        /** Every user's orders placed in [fromMillis, toMillis), newest first, at most limit (shop reports). */
+        @Override
+        public java.util.List<Order> getAllOrdersBetween(long fromMillis, long toMillis, int limit) {
             java.util.List<Order> list = new java.util.ArrayList<>();
 
-            String sql = "SELECT order_time, items_summary, total, pc_number, payment_method " +
-                    "FROM orders WHERE user_id = ? ORDER BY id DESC";
+            try (Connection conn = Database.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(SQL_RANGE_ALL)) {
 
-            try (Connection conn = DriverManager.getConnection(DB_URL);
-                 PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setLong(1, fromMillis);
+                ps.setLong(2, toMillis);
+                ps.setInt(3, limit);
 
-                ps.setInt(1, userId);
+                readOrders(ps, list);
+                if (!list.isEmpty()) {
+                    loadItems(conn, null, list);
+                }
+
+            } catch (SQLException e) {
+                System.out.println("Error loading orders by date: " + e.getMessage());
+                e.printStackTrace();
+            }
+
+            return list;
+        }
+
+        /**
+         * A user's orders whose items match text, newest first. Every word must match the start
+         * of a word in the order ("cook comb" finds "Cookie Combo"); punctuation is ignored.
+         */
+        @Override
+        public java.util.List<Order> searchOrders(int userId, String text, int limit) {
+            java.util.List<Order> list = new java.util.ArrayList<>();
+            String match = toMatchQuery(text);
+            if (match == null) {
+                return list;
+            }
+
+            try (Connection conn = Database.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(SQL_SEARCH_FOR_USER)) {
+
+                ps.setString(1, match);
+                ps.setInt(2, userId);
+                ps.setInt(3, limit);
+
+                readOrders(ps, list);
+                if (!list.isEmpty()) {
+                    loadItems(conn, userId, list);
+                }
+
+            } catch (SQLException e) {
+                System.out.println("Error searching orders: " + e.getMessage());
+                e.printStackTrace();
+            }
+
+            return list;
+        }
+
+        // User text -> FTS5 query of quoted prefix terms, so input can never be FTS syntax; null if no words
+        static String toMatchQuery(String text) {
+            StringBuilder q = new StringBuilder();
+            for (String word : text.split("[^\\p{L}\\p{N}]+")) {
+                if (word.isEmpty()) {
+                    continue;
+                }
+                if (q.length() > 0) {
+                    q.append(' ');
+                }
+                q.append('"').append(word).append("\"*");
+            }
+            return q.length() == 0 ? null : q.toString();
+        }
+
+        private static void readOrders(PreparedStatement ps, java.util.List<Order> into) throws SQLException {
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    long id = rs.getLong("id");
+                    long ts = rs.getLong("order_ts");
+                    String items = rs.getString("items_summary");
+                    int total = rs.getInt("total");
+                    String pc = rs.getString("pc_number");
+                    String pay = rs.getString("payment_method");
+
+                    Order o = new Order(id, ts, items, total, pc, pay);
+                    o.userId = rs.getInt("user_id");
+                    o.status = OrderStatus.fromDb(rs.getString("status"));
+                    into.add(o);
+                }
+            }
+        }
+
+        // Attaches order_items rows to a list of orders, in one query over their id span
+        private void loadItems(Connection conn, Integer userId, java.util.List<Order> orders) throws SQLException {
+            java.util.Map<Long, Order> byId = new java.util.HashMap<>();
+            long minId = Long.MAX_VALUE;
+            long maxId = Long.MIN_VALUE;
+            for (Order o : orders) {
+                byId.put(o.id, o);
+                minId = Math.min(minId, o.id);
+                maxId = Math.max(maxId, o.id);
+            }
+
+            // per user: the (user_id, id) index narrows the join; otherwise just the id span
+            String sql = userId != null ? SQL_ITEMS_FOR_PAGE : SQL_ITEMS_FOR_ID_RANGE;
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                if (userId != null) {
+                    ps.setInt(1, userId);
+                    ps.setLong(2, maxId + 1);
+                    ps.setLong(3, minId);
+                } else {
+                    ps.setLong(1, minId);
+                    ps.setLong(2, maxId);
+                }
 
                 try (ResultSet rs = ps.executeQuery()) {
                     while (rs.next()) {
-                        String time = rs.getString("order_time");
-                        String items = rs.getString("items_summary");
-                        int total = rs.getInt("total");
-                        String pc = rs.getString("pc_number");
-                        String pay = rs.getString("payment_method");
+                        Order o = byId.get(rs.getLong("order_id"));
+                        if (o != null) {
+                            o.items.add(new OrderLine(
+                                    rs.getString("sku"),
+                                    rs.getString("name"),
+                                    rs.getInt("qty"),
+                                    rs.getInt("unit_price")
+                            ));
+                        }
+                    }
+                }
+            }
+        }
+
+        /** Moves an order to a new kitchen status; false if it doesn't exist or on a database error. */
+        @Override
+        public boolean updateStatus(long orderId, OrderStatus status) {
+            try (Connection conn = Database.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(SQL_UPDATE_STATUS)) {
+
+                ps.setString(1, status.dbValue);
+                ps.setLong(2, orderId);
+                return ps.executeUpdate() == 1;
+
+            } catch (SQLException e) {
+                System.out.println("Error updating status of order " + orderId + ": " + e.getMessage());
+                e.printStackTrace();
+                return false;
+            }
+        }
+
+        /** Every shop order not yet delivered, oldest first, with items (kitchen start-up). */
+        @Override
+        public java.util.List<Order> getOpenOrders(int limit) {
+            java.util.List<Order> list = new java.util.ArrayList<>();
+
+            try (Connection conn = Database.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(SQL_OPEN_ORDERS)) {
+
+                ps.setInt(1, limit);
+                readOrders(ps, list);
 
-                        list.add(new Order(time, items, total, pc, pay));
+                if (!list.isEmpty()) {
+                    java.util.Map<Long, Order> byId = new java.util.HashMap<>();
+                    for (Order o : list) {
+                        byId.put(o.id, o);
+                    }
+                    try (PreparedStatement items = conn.prepareStatement(SQL_ITEMS_FOR_OPEN)) {
+                        items.setInt(1, limit);
+                        try (ResultSet rs = items.executeQuery()) {
+                            while (rs.next()) {
+                                Order o = byId.get(rs.getLong("order_id"));
+                                if (o != null) {
+                                    o.items.add(new OrderLine(
+                                            rs.getString("sku"),
+                                            rs.getString("name"),
+                                            rs.getInt("qty"),
+                                            rs.getInt("unit_price")
+                                    ));
+                                }
+                            }
+                        }
                     }
                 }
 
             } catch (SQLException e) {
-                System.out.println("Error loading orders: " + e.getMessage());
+                System.out.println("Error loading open orders: " + e.getMessage());
                 e.printStackTrace();
             }
 
             return list;
         }
+
+        /**
+         * Nothing to open: this helper and the kitchen publish on this process's OrderEventBus
+         * already. Status changes made by another process only reach stations through the order server.
+         */
+        @Override
+        public StatusFeed watchStatus(int userId) {
+            return () -> { };
+        }
+
+        /** Units sold and revenue for one SKU, as {qty, revenue}; an indexed aggregate over order_items. */
+        @Override
+        public int[] getSalesForSku(String sku) {
+            try (Connection conn = Database.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(SQL_SALES_FOR_SKU)) {
+
+                ps.setString(1, sku);
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    return new int[]{rs.getInt(1), rs.getInt(2)};
+                }
+
+            } catch (SQLException e) {
+                System.out.println("Error loading sales for " + sku + ": " + e.getMessage());
+                e.printStackTrace();
+                return new int[]{0, 0};
+            }
+        }
+
+        // id of the skip-th order below beforeId; lets the history table jump pages without loading them
+        @Override
+        public long findOrderIdAfter(int userId, long beforeId, int skip) {
+            try (Connection conn = Database.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(SQL_ID_AFTER)) {
+
+                ps.setInt(1, userId);
+                ps.setLong(2, beforeId);
+                ps.setInt(3, skip - 1);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? rs.getLong(1) : -1;
+                }
+
+            } catch (SQLException e) {
+                System.out.println("Error paging orders: " + e.getMessage());
+                e.printStackTrace();
+                return -1;
+            }
+        }
+    }
+
+    // ================= GAME SESSION DB HELPER =================
+
+    // One row per user with time left: written when time is bought and on logout, never per second
+    static class GameSessionDatabaseHelper implements GameSessionStore {
+        static final String SQL_LOAD_SESSION = "SELECT purchased_seconds, ends_at FROM game_sessions WHERE user_id = ?";
+
+        static final String SQL_SAVE_SESSION = "INSERT INTO game_sessions(user_id, purchased_seconds, ends_at, updated_at) " +
+                "VALUES(?, ?, ?, ?) ON CONFLICT(user_id) DO UPDATE SET " +
+                "purchased_seconds = excluded.purchased_seconds, ends_at = excluded.ends_at, updated_at = excluded.updated_at";
+
+        static final String SQL_DELETE_SESSION = "DELETE FROM game_sessions WHERE user_id = ?";
+
+        static final String[] QUERIES = {
+                SQL_LOAD_SESSION,
+                SQL_SAVE_SESSION,
+                SQL_DELETE_SESSION
+        };
+
+        /** Saved session as {purchasedSeconds, endsAtEpochMillis}, or null if the user has none. */
+        @Override
+        public long[] load(int userId) {
+            try (Connection conn = Database.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(SQL_LOAD_SESSION)) {
+
+                ps.setInt(1, userId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? new long[]{rs.getLong(1), rs.getLong(2)} : null;
+                }
+
+            } catch (SQLException e) {
+                System.out.println("Error loading game session: " + e.getMessage());
+                e.printStackTrace();
+                return null;
+            }
+        }
+
+        @Override
+        public boolean save(int userId, long purchasedSeconds, long endsAt) {
+            try (Connection conn = Database.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(SQL_SAVE_SESSION)) {
+
+                ps.setInt(1, userId);
+                ps.setLong(2, purchasedSeconds);
+                ps.setLong(3, endsAt);
+                ps.setLong(4, System.currentTimeMillis());
+                ps.executeUpdate();
+                return true;
+
+            } catch (SQLException e) {
+                System.out.println("Error saving game session: " + e.getMessage());
+                e.printStackTrace();
+                return false;
+            }
+        }
+
+        @Override
+        public void delete(int userId) {
+            try (Connection conn = Database.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(SQL_DELETE_SESSION)) {
+
+                ps.setInt(1, userId);
+                ps.executeUpdate();
+
+            } catch (SQLException e) {
+                System.out.println("Error clearing game session: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // ================= CREDIT LEDGER DB HELPER =================
+
+    /**
+     * Game-credit purchases, usage and refunds. Every change appends a credit_ledger row and
+     * updates credit_balance in the same transaction, so the balance is one primary-key read.
+     * Purchases are also saved as an order (with one order_items line) so they show in Order History.
+     * Changes that read the balance first take the write lock up front (BEGIN IMMEDIATE), so two
+     * callers can't both read the same balance and both append against it.
+     */
+    static class CreditLedgerDatabaseHelper implements CreditStore {
+        static final String KIND_PURCHASE = "purchase";
+        static final String KIND_CONSUME = "consume";
+        static final String KIND_REFUND = "refund";
+
+        static final String SQL_INSERT_ENTRY = "INSERT INTO credit_ledger(user_id, kind, seconds, amount, order_id, created_at) " +
+                "VALUES(?, ?, ?, ?, ?, ?)";
+
+        static final String SQL_APPLY_BALANCE = "INSERT INTO credit_balance(user_id, seconds, total_spent, updated_at) " +
+                "VALUES(?, ?, ?, ?) ON CONFLICT(user_id) DO UPDATE SET " +
+                "seconds = seconds + excluded.seconds, total_spent = total_spent + excluded.total_spent, " +
+                "updated_at = excluded.updated_at";
+
+        static final String SQL_GET_BALANCE = "SELECT seconds, total_spent FROM credit_balance WHERE user_id = ?";
+
+        // A credit sale's entries (its purchase, and a refund if there was one)
+        static final String SQL_ENTRIES_FOR_ORDER = "SELECT kind, seconds, amount FROM credit_ledger " +
+                "WHERE order_id = ? AND user_id = ?";
+
+        static final String[] QUERIES = {
+                SQL_INSERT_ENTRY,
+                SQL_APPLY_BALANCE,
+                SQL_GET_BALANCE,
+                SQL_ENTRIES_FOR_ORDER
+        };
+
+        private interface LedgerChange<T> {
+            T apply(Connection conn) throws SQLException;
+        }
+
+        /** Saves a credit sale: the order, a purchase entry for its pack's seconds, and the new balance. */
+        @Override
+        public boolean purchase(Order order) {
+            CreditItem pack = order.items.size() == 1 ? OrderingService.findCreditPack(order.items.get(0).getSku()) : null;
+            if (pack == null) {
+                System.out.println("Not a credit sale (one line of a credit pack): " + order.itemsSummary);
+                return false;
+            }
+            long seconds = pack.seconds;
+
+            try (Connection conn = Database.getConnection()) {
+                conn.setAutoCommit(false);
+
+                try (PreparedStatement ps = conn.prepareStatement(OrderDatabaseHelper.SQL_INSERT_ORDER, Statement.RETURN_GENERATED_KEYS);
+                     PreparedStatement itemPs = conn.prepareStatement(OrderDatabaseHelper.SQL_INSERT_ITEM)) {
+
+                    order.status = OrderStatus.DELIVERED; // game time, not food: nothing for the kitchen
+                    if (OrderDatabaseHelper.addOrder(ps, itemPs, order)) {
+                        itemPs.executeBatch();
+                        append(conn, order.userId, KIND_PURCHASE, seconds, order.total, order.id);
+                    }
+                    conn.commit();
+                    return true;
+
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+
+            } catch (SQLException e) {
+                System.out.println("Error saving credit purchase: " + e.getMessage());
+                e.printStackTrace();
+                return false;
+            }
+        }
+
+        /**
+         * Records the time used since the last call: whatever the balance has above remainingSeconds
+         * becomes one consume entry. Does nothing if there is no balance or nothing was used.
+         */
+        @Override
+        public void recordUsage(int userId, long remainingSeconds) {
+            try (Connection conn = Database.getConnection()) {
+                immediate(conn, c -> {
+                    long[] balance = getBalance(c, userId);
+                    if (balance != null && balance[0] > remainingSeconds) {
+                        append(c, userId, KIND_CONSUME, remainingSeconds - balance[0], 0, null);
+                    }
+                    return null;
+                });
+
+            } catch (SQLException e) {
+                System.out.println("Error recording credit usage: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+
+        /**
+         * Refunds a credit sale whose time is all still on the balance: a refund entry takes its
+         * seconds back off the balance and returns its price. False if the order is not this user's
+         * credit sale, was refunded already, or some of its time has been used (record usage first).
+         */
+        @Override
+        public boolean refund(int userId, long orderId) {
+            try (Connection conn = Database.getConnection()) {
+                return immediate(conn, c -> refund(c, userId, orderId));
+
+            } catch (SQLException e) {
+                System.out.println("Error saving credit refund: " + e.getMessage());
+                e.printStackTrace();
+                return false;
+            }
+        }
+
+        private static boolean refund(Connection conn, int userId, long orderId) throws SQLException {
+            long seconds = 0;
+            int amount = 0;
+            boolean bought = false;
+
+            try (PreparedStatement ps = conn.prepareStatement(SQL_ENTRIES_FOR_ORDER)) {
+                ps.setLong(1, orderId);
+                ps.setInt(2, userId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        String kind = rs.getString("kind");
+                        if (KIND_REFUND.equals(kind)) {
+                            System.out.println("Credit sale " + orderId + " was already refunded");
+                            return false;
+                        }
+                        if (KIND_PURCHASE.equals(kind)) {
+                            bought = true;
+                            seconds += rs.getLong("seconds");
+                            amount += rs.getInt("amount");
+                        }
+                    }
+                }
+            }
+            if (!bought) {
+                System.out.println("Order " + orderId + " is not a credit sale of user " + userId);
+                return false;
+            }
+
+            long[] balance = getBalance(conn, userId);
+            if (balance == null || balance[0] < seconds) {
+                System.out.println("Credit sale " + orderId + " can't be refunded: part of its time was used");
+                return false;
+            }
+
+            append(conn, userId, KIND_REFUND, -seconds, amount, orderId);
+            return true;
+        }
+
+        /** {seconds, totalSpent} for a user, or null if they never bought credits. */
+        @Override
+        public long[] getBalance(int userId) {
+            try (Connection conn = Database.getConnection()) {
+                return getBalance(conn, userId);
+            } catch (SQLException e) {
+                System.out.println("Error loading credit balance: " + e.getMessage());
+                e.printStackTrace();
+                return null;
+            }
+        }
+
+        private static long[] getBalance(Connection conn, int userId) throws SQLException {
+            try (PreparedStatement ps = conn.prepareStatement(SQL_GET_BALANCE)) {
+                ps.setInt(1, userId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? new long[]{rs.getLong(1), rs.getLong(2)} : null;
+                }
+            }
+        }
+
+        // Runs change in a write transaction taken up front
+        private static <T> T immediate(Connection conn, LedgerChange<T> change) throws SQLException {
+            try (Statement st = conn.createStatement()) {
+                st.execute("BEGIN IMMEDIATE");
+                try {
+                    T result = change.apply(conn);
+                    st.execute("COMMIT");
+                    return result;
+                } catch (SQLException | RuntimeException e) {
+                    st.execute("ROLLBACK");
+                    throw e;
+                }
+            }
+        }
+
+        // Ledger row + balance update; caller owns the transaction
+        private static void append(Connection conn, int userId, String kind, long seconds, int amount, Long orderId) throws SQLException {
+            long now = System.currentTimeMillis();
+
+            try (PreparedStatement ps = conn.prepareStatement(SQL_INSERT_ENTRY)) {
+                ps.setInt(1, userId);
+                ps.setString(2, kind);
+                ps.setLong(3, seconds);
+                ps.setInt(4, amount);
+                ps.setObject(5, orderId);
+                ps.setLong(6, now);
+                ps.executeUpdate();
+            }
+
+            int spent = KIND_PURCHASE.equals(kind) ? amount : KIND_REFUND.equals(kind) ? -amount : 0;
+            try (PreparedStatement ps = conn.prepareStatement(SQL_APPLY_BALANCE)) {
+                ps.setInt(1, userId);
+                ps.setLong(2, seconds);
+                ps.setInt(3, spent);
+                ps.setLong(4, now);
+                ps.executeUpdate();
+            }
+        }
     }
 }
@@ -3,6 +3,8 @@ import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.sql.*;
 
 /**
@@ -11,8 +13,6 @@ import java.sql.*;
  */
 public class CyberEatDiriAuth {
 
-    private static final String APP_FONT = "Poppins";
-
     // Colors
     private static final Color RED_TOP = new Color(0xCC0000);
     private static final Color RED_BOTTOM = new Color(0x7A0000);
@@ -34,9 +34,20 @@ public class CyberEatDiriAuth {
     private JTextField loginEmailField;
     private JPasswordField loginPasswordField;
 
-    private final DatabaseHelper db = new DatabaseHelper();
+    // Submit buttons (show a loading state while the DB call runs)
+    private JButton signUpSubmitButton;
+    private JButton loginSubmitButton;
+
+    private final UserStore db = Stores.users(); // local SQLite or the order server
 
     public static void main(String[] args) {
+        // Bring the schema up to date once, before any window needs the database
+        // (with -Dcybereatdiri.server the order server owns the database instead)
+        if (!Stores.isRemote()) {
+            SchemaMigrator.migrate();
+        }
+        OrderWriter.start(); // replays any checkouts left in the journal
+        AssetPreloader.start(); // decodes the main window's icons while the login screen is up
         SwingUtilities.invokeLater(() -> new CyberEatDiriAuth().start());
     }
 
@@ -56,18 +67,30 @@ public class CyberEatDiriAuth {
         frame.setSize(900, 600);
         frame.setLocationRelativeTo(null);
 
+        // Background paint stats, once the login window goes away (closed = exit, disposed = logged in)
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                System.out.println(BackgroundCache.describeStats());
+            }
+
+            @Override
+            public void windowClosed(WindowEvent e) {
+                System.out.println(BackgroundCache.describeStats());
+            }
+        });
+
         // Root panel with gradient background
         JPanel gradientRoot = new JPanel() {
+            private final BackgroundCache background = new BackgroundCache("gradientRoot", (g2, w, h) -> {
+                g2.setPaint(new GradientPaint(0, 0, RED_TOP, 0, h, RED_BOTTOM));
+                g2.fillRect(0, 0, w, h);
+            });
+
             @Override
             protected void paintComponent(Graphics g) {
-                super.paintComponent(g);
-                Graphics2D g2 = (Graphics2D) g;
-                GradientPaint gp = new GradientPaint(
-                        0, 0, RED_TOP,
-                        0, getHeight(), RED_BOTTOM
-                );
-                g2.setPaint(gp);
-                g2.fillRect(0, 0, getWidth(), getHeight());
+                // the gradient covers everything, so no super.paintComponent fill first
+                background.paint(g, getWidth(), getHeight(), null);
             }
         };
         gradientRoot.setLayout(new GridBagLayout());
@@ -84,6 +107,7 @@ public class CyberEatDiriAuth {
         frame.setContentPane(gradientRoot);
 
         showCard("landing");
+        AssetPreloader.logFirstFrame(frame, "login", -1);
         frame.setVisible(true);
     }
 
@@ -100,12 +124,12 @@ public class CyberEatDiriAuth {
 
         JLabel title = new JLabel("CYBER–EATDIRI", SwingConstants.CENTER);
         title.setAlignmentX(Component.CENTER_ALIGNMENT);
-        title.setFont(new Font(APP_FONT, Font.BOLD, 48));
+        title.setFont(AppFonts.get(Font.BOLD, 48));
         title.setForeground(Color.WHITE);
 
         JLabel tagline = new JLabel("GAME • EAT • CONNECT", SwingConstants.CENTER);
         tagline.setAlignmentX(Component.CENTER_ALIGNMENT);
-        tagline.setFont(new Font(APP_FONT, Font.PLAIN, 18));
+        tagline.setFont(AppFonts.get(Font.PLAIN, 18));
         tagline.setForeground(Color.WHITE);
 
         panel.add(Box.createVerticalStrut(40));
@@ -144,7 +168,7 @@ public class CyberEatDiriAuth {
 
         // Heading
         JLabel heading = new JLabel("Sign Up");
-        heading.setFont(new Font(APP_FONT, Font.BOLD, 24));
+        heading.setFont(AppFonts.get(Font.BOLD, 24));
         heading.setForeground(TEXT_DARK);
         heading.setAlignmentX(Component.LEFT_ALIGNMENT);
 
@@ -169,6 +193,7 @@ public class CyberEatDiriAuth {
         JButton signUpBtn = redRoundedButton("Sign Up");
         signUpBtn.setAlignmentX(Component.LEFT_ALIGNMENT);
         signUpBtn.addActionListener(e -> handleSignUp());
+        signUpSubmitButton = signUpBtn;
         card.add(signUpBtn);
         card.add(Box.createVerticalStrut(15));
 
@@ -177,7 +202,7 @@ public class CyberEatDiriAuth {
         bottomRow.setOpaque(false);
 
         JLabel already = new JLabel("Already have an account? ");
-        already.setFont(new Font(APP_FONT, Font.PLAIN, 12));
+        already.setFont(AppFonts.get(Font.PLAIN, 12));
         already.setForeground(TEXT_DARK);
 
         JLabel loginLink = linkLabel("Login");
@@ -213,7 +238,7 @@ public class CyberEatDiriAuth {
 
         // Heading
         JLabel heading = new JLabel("Log In");
-        heading.setFont(new Font(APP_FONT, Font.BOLD, 24));
+        heading.setFont(AppFonts.get(Font.BOLD, 24));
         heading.setForeground(TEXT_DARK);
         heading.setAlignmentX(Component.LEFT_ALIGNMENT);
 
@@ -232,6 +257,7 @@ public class CyberEatDiriAuth {
         JButton loginBtn = redRoundedButton("Login");
         loginBtn.setAlignmentX(Component.LEFT_ALIGNMENT);
         loginBtn.addActionListener(e -> handleLogin());
+        loginSubmitButton = loginBtn;
         card.add(loginBtn);
         card.add(Box.createVerticalStrut(15));
 
@@ -240,7 +266,7 @@ public class CyberEatDiriAuth {
         bottomRow.setOpaque(false);
 
         JLabel noAccount = new JLabel("Don’t have an account? ");
-        noAccount.setFont(new Font(APP_FONT, Font.PLAIN, 12));
+        noAccount.setFont(AppFonts.get(Font.PLAIN, 12));
         noAccount.setForeground(TEXT_DARK);
 
         JLabel signUpLink = linkLabel("Sign Up");
@@ -282,23 +308,39 @@ public class CyberEatDiriAuth {
             return;
         }
 
-        boolean ok = db.registerUser(email, phone, password);
-        if (!ok) {
+        Runnable doneLoading = DbExecutor.busy(signUpSubmitButton, "Signing up...");
+
+        // Register off the EDT; the result is an error message, or null on success
+        DbExecutor.supply(() -> {
+            boolean ok = db.registerUser(email, phone, password);
+            if (ok) {
+                return null;
+            }
             String err = db.getLastError();
-            showError(err != null ? err : "Failed to register user.");
-            return;
-        }
+            return err != null ? err : "Failed to register user.";
+        }).whenCompleteAsync((err, ex) -> {
+            doneLoading.run();
+
+            if (ex != null) {
+                showError("Failed to register user: " + DbExecutor.cause(ex).getMessage());
+                return;
+            }
+            if (err != null) {
+                showError(err);
+                return;
+            }
 
-        JOptionPane.showMessageDialog(
-                frame,
-                "Account created successfully! You can now log in.",
-                "Sign Up",
-                JOptionPane.INFORMATION_MESSAGE
-        );
+            JOptionPane.showMessageDialog(
+                    frame,
+                    "Account created successfully! You can now log in.",
+                    "Sign Up",
+                    JOptionPane.INFORMATION_MESSAGE
+            );
 
-        loginEmailField.setText(email);
-        loginPasswordField.setText("");
-        showCard("login");
+            loginEmailField.setText(email);
+            loginPasswordField.setText("");
+            showCard("login");
+        }, DbExecutor.EDT);
     }
 
     private void handleLogin() {
@@ -310,39 +352,63 @@ public class CyberEatDiriAuth {
             return;
         }
 
-        boolean valid = db.validateLogin(email, password);
-        if (!valid) {
-            String err = db.getLastError();
-            if (err != null) {
-                showError(err);
-            } else {
-                showError("Invalid email or password.");
+        Runnable doneLoading = DbExecutor.busy(loginSubmitButton, "Logging in...");
+
+        // Check credentials off the EDT so the window keeps repainting
+        DbExecutor.supply(() -> {
+            UserPrincipal user = db.authenticate(email, password);
+            if (user == null) {
+                String err = db.getLastError();
+                return LoginResult.failed(err != null ? err : "Invalid email or password.");
             }
-            return;
-        }
+            return LoginResult.ok(user);
+        }).whenCompleteAsync((result, ex) -> {
+            doneLoading.run();
 
-        // Get user id from DB
-        Integer userId = db.getUserIdByEmail(email);
-        if (userId == null) {
-            showError("Could not find user id for this account.");
-            return;
-        }
+            if (ex != null) {
+                showError("Database error while logging in: " + DbExecutor.cause(ex).getMessage());
+                return;
+            }
+            if (result.error != null) {
+                showError(result.error);
+                return;
+            }
 
-        // Store user in the global session
-        UserSession.setUser(userId, email);
+            // Store user in the global session
+            UserSession.setUser(result.user);
 
-        JOptionPane.showMessageDialog(
-                frame,
-                "Login successful! Opening Cyber-EatDiri...",
-                "Login",
-                JOptionPane.INFORMATION_MESSAGE
-        );
+            JOptionPane.showMessageDialog(
+                    frame,
+                    "Login successful! Opening Cyber-EatDiri...",
+                    "Login",
+                    JOptionPane.INFORMATION_MESSAGE
+            );
+
+            frame.dispose();
+
+            // IMPORTANT: keep your original no-arg constructor
+            // We no longer change CyberEatDiriApp constructors.
+            new CyberEatDiriApp().start();
+        }, DbExecutor.EDT);
+    }
+
+    // Outcome of a background login attempt
+    private static class LoginResult {
+        final UserPrincipal user;
+        final String error;
 
-        frame.dispose();
+        private LoginResult(UserPrincipal user, String error) {
+            this.user = user;
+            this.error = error;
+        }
+
+        static LoginResult ok(UserPrincipal user) {
+            return new LoginResult(user, null);
+        }
 
-        // IMPORTANT: keep your original no-arg constructor
-        // We no longer change CyberEatDiriApp constructors.
-        new CyberEatDiriApp().start();
+        static LoginResult failed(String error) {
+            return new LoginResult(null, error);
+        }
     }
 
     private void showError(String msg) {
@@ -353,7 +419,7 @@ public class CyberEatDiriAuth {
 
     private JButton bigBlackButton(String text) {
         JButton btn = new JButton(text);
-        btn.setFont(new Font(APP_FONT, Font.BOLD, 16));
+        btn.setFont(AppFonts.get(Font.BOLD, 16));
         btn.setForeground(Color.WHITE);
         btn.setBackground(Color.BLACK);
         btn.setFocusPainted(false);
@@ -366,22 +432,21 @@ public class CyberEatDiriAuth {
 
     private JButton redRoundedButton(String text) {
         JButton btn = new JButton(text) {
-            @Override
-            protected void paintComponent(Graphics g) {
-                Graphics2D g2 = (Graphics2D) g.create();
+            private final BackgroundCache background = new BackgroundCache("redRoundedButton", (g2, w, h) -> {
                 g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
                         RenderingHints.VALUE_ANTIALIAS_ON);
-
-                int arc = getHeight();
                 g2.setColor(BUTTON_RED);
-                g2.fillRoundRect(0, 0, getWidth(), getHeight(), arc, arc);
-                g2.dispose();
+                g2.fillRoundRect(0, 0, w, h, h, h);
+            });
 
+            @Override
+            protected void paintComponent(Graphics g) {
+                background.paint(g, getWidth(), getHeight(), null);
                 super.paintComponent(g);
             }
         };
 
-        btn.setFont(new Font(APP_FONT, Font.BOLD, 14));
+        btn.setFont(AppFonts.get(Font.BOLD, 14));
         btn.setForeground(Color.WHITE);
         btn.setBackground(BUTTON_RED);
         btn.setFocusPainted(false);
@@ -395,7 +460,7 @@ public class CyberEatDiriAuth {
 
     private JTextField createTextField() {
         JTextField tf = new JTextField();
-        tf.setFont(new Font(APP_FONT, Font.PLAIN, 14));
+        tf.setFont(AppFonts.get(Font.PLAIN, 14));
         tf.setPreferredSize(new Dimension(320, 32));
         tf.setMaximumSize(new Dimension(Integer.MAX_VALUE, 32));
         tf.setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
@@ -406,7 +471,7 @@ public class CyberEatDiriAuth {
 
     private JPasswordField createPasswordField() {
         JPasswordField pf = new JPasswordField();
-        pf.setFont(new Font(APP_FONT, Font.PLAIN, 14));
+        pf.setFont(AppFonts.get(Font.PLAIN, 14));
         pf.setPreferredSize(new Dimension(320, 32));
         pf.setMaximumSize(new Dimension(Integer.MAX_VALUE, 32));
         pf.setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
@@ -422,7 +487,7 @@ public class CyberEatDiriAuth {
         panel.setAlignmentX(Component.LEFT_ALIGNMENT);
 
         JLabel label = new JLabel(labelText);
-        label.setFont(new Font(APP_FONT, Font.PLAIN, 13));
+        label.setFont(AppFonts.get(Font.PLAIN, 13));
         label.setForeground(TEXT_DARK);
         label.setAlignmentX(Component.LEFT_ALIGNMENT);
 
@@ -437,7 +502,7 @@ public class CyberEatDiriAuth {
 
     private JLabel linkLabel(String text) {
         JLabel link = new JLabel(text);
-        link.setFont(new Font(APP_FONT, Font.PLAIN, 12));
+        link.setFont(AppFonts.get(Font.PLAIN, 12));
         link.setForeground(new Color(0x0066CC));
         link.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
         return link;
@@ -449,57 +514,53 @@ public class CyberEatDiriAuth {
 
     // ===================== DB HELPER =====================
 
-    private static class DatabaseHelper {
-        private static final String DB_URL = "jdbc:sqlite:cybereatdiri_users.db";
-        private String lastError;
+    static class DatabaseHelper implements UserStore {
+        static final String SQL_INSERT_USER = "INSERT INTO users(email, phone, password) VALUES(?, ?, ?)";
 
-        public String getLastError() {
-            return lastError;
-        }
+        static final String SQL_AUTHENTICATE = "SELECT id, email, phone FROM users WHERE email = ? AND password = ?";
 
-        public void init() {
-            lastError = null;
+        // Every statement above; QueryPlanCheck verifies none of them scans a table
+        static final String[] QUERIES = {
+                SQL_INSERT_USER,
+                SQL_AUTHENTICATE
+        };
 
-            try {
-                Class.forName("org.sqlite.JDBC");
-            } catch (ClassNotFoundException e) {
-                lastError = "SQLite JDBC driver not found. Make sure sqlite-jdbc.jar is on the classpath.";
-                e.printStackTrace();
-                return;
-            }
+        // Login round-trip times (watch p99 during shift changes); printed once at exit
+        static final LatencyHistogram LOGIN_LATENCY = new LatencyHistogram("login");
 
-            try (Connection conn = DriverManager.getConnection(DB_URL);
-                 Statement st = conn.createStatement()) {
+        static {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                if (LOGIN_LATENCY.getCount() > 0) {
+                    System.out.println(LOGIN_LATENCY.describe());
+                }
+            }, "login-latency-report"));
+        }
 
-                // users table ONLY
-                st.executeUpdate(
-                        "CREATE TABLE IF NOT EXISTS users (" +
-                                "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                                "email TEXT UNIQUE NOT NULL," +
-                                "phone TEXT NOT NULL," +
-                                "password TEXT NOT NULL" +
-                                ");"
-                );
+        // Per-thread, so a background login can't clobber a background sign-up's error
+        private final ThreadLocal<String> lastError = new ThreadLocal<>();
 
-            } catch (SQLException e) {
-                lastError = "Database init error: " + e.getMessage();
-                e.printStackTrace();
-            }
+        @Override
+        public String getLastError() {
+            return lastError.get();
         }
 
-        public boolean registerUser(String email, String phone, String password) {
-            lastError = null;
+        // Schema setup runs once per process; this only reports its outcome
+        @Override
+        public void init() {
+            lastError.remove();
 
-            // make sure DB + users table exist
-            init();
-            if (lastError != null) {
-                return false;   // init already set a nice error message
+            String err = SchemaMigrator.migrate();
+            if (err != null) {
+                lastError.set(err);
             }
+        }
 
-            String sql = "INSERT INTO users(email, phone, password) VALUES(?, ?, ?)";
+        @Override
+        public boolean registerUser(String email, String phone, String password) {
+            lastError.remove();
 
-            try (Connection conn = DriverManager.getConnection(DB_URL);
-                 PreparedStatement ps = conn.prepareStatement(sql)) {
+            try (Connection conn = Database.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(SQL_INSERT_USER)) {
 
                 ps.setString(1, email);
                 ps.setString(2, phone);
@@ -511,69 +572,47 @@ public class CyberEatDiriAuth {
                 e.printStackTrace();
                 String msg = e.getMessage() == null ? "" : e.getMessage().toLowerCase();
                 if (msg.contains("unique") || msg.contains("constraint")) {
-                    lastError = "Email is already registered.";
+                    lastError.set("Email is already registered.");
                 } else {
-                    lastError = "Database error while registering: " + e.getMessage();
+                    lastError.set("Database error while registering: " + e.getMessage());
                 }
                 return false;
             }
         }
 
-        public boolean validateLogin(String email, String password) {
-            lastError = null;
-
-            // ensure tables exist
-            init();
-
-            if (lastError != null) {
-                return false;
-            }
-
-            String sql = "SELECT id FROM users WHERE email = ? AND password = ?";
+        /**
+         * Resolves credentials to the full user record in one query.
+         * Returns null for a wrong email/password (lastError stays null) or on a DB error (lastError set).
+         */
+        @Override
+        public UserPrincipal authenticate(String email, String password) {
+            lastError.remove();
+            long start = System.nanoTime();
 
-            try (Connection conn = DriverManager.getConnection(DB_URL);
-                 PreparedStatement ps = conn.prepareStatement(sql)) {
+            try (Connection conn = Database.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(SQL_AUTHENTICATE)) {
 
                 ps.setString(1, email);
                 ps.setString(2, password);
 
-                try (ResultSet rs = ps.executeQuery()) {
-                    return rs.next();
-                }
-
-            } catch (SQLException e) {
-                e.printStackTrace();
-                lastError = "Database error while logging in: " + e.getMessage();
-                return false;
-            }
-        }
-
-        public Integer getUserIdByEmail(String email) {
-            lastError = null;
-
-            // ensure tables exist
-            init();
-            if (lastError != null) {
-                return null;
-            }
-
-            String sql = "SELECT id FROM users WHERE email = ?";
-
-            try (Connection conn = DriverManager.getConnection(DB_URL);
-                 PreparedStatement ps = conn.prepareStatement(sql)) {
-
-                ps.setString(1, email);
                 try (ResultSet rs = ps.executeQuery()) {
                     if (rs.next()) {
-                        return rs.getInt("id");
+                        return new UserPrincipal(
+                                rs.getInt("id"),
+                                rs.getString("email"),
+                                rs.getString("phone")
+                        );
                     }
                 }
-                return null; // not found
+                return null; // wrong email or password
 
             } catch (SQLException e) {
                 e.printStackTrace();
-                lastError = "Database error while fetching user id: " + e.getMessage();
+                lastError.set("Database error while logging in: " + e.getMessage());
                 return null;
+
+            } finally {
+                LOGIN_LATENCY.recordSince(start);
             }
         }
     }
@@ -581,21 +620,22 @@ public class CyberEatDiriAuth {
     // ===================== SMALL UI CLASS =====================
 
     private static class RoundedPanel extends JPanel {
-        private final int radius;
+        private final BackgroundCache background;
 
         public RoundedPanel(int radius) {
-            this.radius = radius;
+            background = new BackgroundCache("RoundedPanel", (g2, w, h) -> {
+                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                        RenderingHints.VALUE_ANTIALIAS_ON);
+                g2.setColor(getBackground());
+                g2.fillRoundRect(0, 0, w, h, radius, radius);
+            });
             setOpaque(false);
         }
 
         @Override
         protected void paintComponent(Graphics g) {
-            Graphics2D g2 = (Graphics2D) g.create();
-            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
-                    RenderingHints.VALUE_ANTIALIAS_ON);
-            g2.setColor(getBackground());
-            g2.fillRoundRect(0, 0, getWidth(), getHeight(), radius, radius);
-            g2.dispose();
+            // background colour is part of the key, so setBackground() re-renders
+            background.paint(g, getWidth(), getHeight(), getBackground());
             super.paintComponent(g);
         }
     }
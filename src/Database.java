@@ -0,0 +1,292 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared SQLite connection pool for Cyber-EatDiri.
+ * Both DatabaseHelper (users) and OrderDatabaseHelper (orders) borrow from here
+ * instead of opening cybereatdiri_users.db on every click.
+ *
+ * Connections are opened once with WAL journaling and stay open for the whole process.
+ * Callers keep using try-with-resources: close() on a borrowed connection just
+ * hands it back to the pool.
+ */
+public final class Database {
+
+    // Override with -Dcybereatdiri.db.url=... (QueryPlanCheck points this at a scratch file)
+    static final String DB_URL = System.getProperty("cybereatdiri.db.url", "jdbc:sqlite:cybereatdiri_users.db");
+
+    // Tunables (override with -Dcybereatdiri.db.poolSize=... etc.)
+    private static final int POOL_SIZE = Integer.getInteger("cybereatdiri.db.poolSize", 4);
+    private static final long MAX_WAIT_MILLIS = Long.getLong("cybereatdiri.db.maxWaitMillis", 5000L);
+    private static final int BUSY_TIMEOUT_MILLIS = 5000;
+
+    private static final BlockingQueue<Connection> idle = new ArrayBlockingQueue<>(POOL_SIZE);
+    private static final List<Connection> all = new ArrayList<>();
+    private static final AtomicInteger openCount = new AtomicInteger();
+
+    // Metrics
+    private static final AtomicLong borrowCount = new AtomicLong();
+    private static final AtomicLong waitCount = new AtomicLong();
+    private static final AtomicLong totalWaitNanos = new AtomicLong();
+    private static final AtomicLong maxWaitNanos = new AtomicLong();
+    private static final AtomicLong timeoutCount = new AtomicLong();
+
+    private static final String driverError;
+
+    static {
+        String err = null;
+        try {
+            Class.forName("org.sqlite.JDBC");
+        } catch (ClassNotFoundException e) {
+            err = "SQLite JDBC driver not found. Make sure sqlite-jdbc.jar is on the classpath.";
+            e.printStackTrace();
+        }
+        driverError = err;
+
+        Runtime.getRuntime().addShutdownHook(new Thread(Database::closeAll, "db-pool-shutdown"));
+    }
+
+    private Database() {
+    }
+
+    /**
+     * Borrow a pooled connection. Always close it (try-with-resources) to give it back.
+     */
+    public static Connection getConnection() throws SQLException {
+        if (driverError != null) {
+            throw new SQLException(driverError);
+        }
+
+        long start = System.nanoTime();
+
+        Connection raw = idle.poll();
+        if (raw == null) {
+            raw = tryOpenNew();
+        }
+        if (raw == null) {
+            // pool is full: wait for another caller to hand one back
+            waitCount.incrementAndGet();
+            try {
+                raw = idle.poll(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a database connection", e);
+            }
+            if (raw == null) {
+                timeoutCount.incrementAndGet();
+                throw new SQLException("Timed out after " + MAX_WAIT_MILLIS
+                        + " ms waiting for a database connection (pool size " + POOL_SIZE + ")");
+            }
+        }
+
+        borrowCount.incrementAndGet(); // successful borrows only; timeouts are counted apart
+        recordWait(System.nanoTime() - start);
+        return wrap(raw);
+    }
+
+    private static Connection tryOpenNew() throws SQLException {
+        while (true) {
+            int current = openCount.get();
+            if (current >= POOL_SIZE) {
+                return null;
+            }
+            if (openCount.compareAndSet(current, current + 1)) {
+                break;
+            }
+        }
+
+        try {
+            Connection conn = DriverManager.getConnection(DB_URL);
+            applyPragmas(conn);
+            synchronized (all) {
+                all.add(conn);
+            }
+            return conn;
+        } catch (SQLException e) {
+            openCount.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private static void applyPragmas(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("PRAGMA journal_mode = WAL");
+            st.execute("PRAGMA synchronous = NORMAL");
+            st.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MILLIS);
+            st.execute("PRAGMA foreign_keys = ON");
+            st.execute("PRAGMA temp_store = MEMORY");
+            st.execute("PRAGMA cache_size = -8000"); // ~8 MB page cache per connection
+        }
+    }
+
+    private static void recordWait(long nanos) {
+        totalWaitNanos.addAndGet(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private static void release(Connection raw) {
+        try {
+            if (raw.isClosed()) {
+                dropBroken(raw);
+                return;
+            }
+            if (!raw.getAutoCommit()) {
+                // caller left a transaction open: undo it before the next borrower sees it
+                raw.rollback();
+                raw.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.out.println("Discarding broken database connection: " + e.getMessage());
+            dropBroken(raw);
+            return;
+        }
+
+        if (!idle.offer(raw)) {
+            dropBroken(raw);
+        }
+    }
+
+    private static void dropBroken(Connection raw) {
+        synchronized (all) {
+            if (!all.remove(raw)) {
+                return;
+            }
+        }
+        openCount.decrementAndGet();
+        try {
+            raw.close();
+        } catch (SQLException ignored) {
+            // already broken
+        }
+    }
+
+    private static void closeAll() {
+        synchronized (all) {
+            for (Connection conn : all) {
+                try {
+                    conn.close();
+                } catch (SQLException ignored) {
+                    // shutting down anyway
+                }
+            }
+            all.clear();
+        }
+        idle.clear();
+        openCount.set(0);
+    }
+
+    // Hands out a per-borrow handle so a double close() can't return the connection twice
+    private static Connection wrap(Connection raw) {
+        InvocationHandler handler = new InvocationHandler() {
+            private boolean closed;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        if (!closed) {
+                            closed = true;
+                            release(raw);
+                        }
+                        return null;
+                    case "isClosed":
+                        return closed || raw.isClosed();
+                    // The raw connection must never leak: a caller could close it or keep using it
+                    // after it went back to the pool
+                    case "unwrap":
+                        if (((Class<?>) args[0]).isInstance(proxy)) {
+                            return proxy;
+                        }
+                        throw new SQLException("A pooled connection can't be unwrapped to " + args[0]);
+                    case "isWrapperFor":
+                        return ((Class<?>) args[0]).isInstance(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "Pooled[" + raw + "]";
+                    default:
+                        break;
+                }
+
+                if (closed) {
+                    throw new SQLException("Connection already returned to the pool");
+                }
+                try {
+                    return method.invoke(raw, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        };
+
+        return (Connection) Proxy.newProxyInstance(
+                Database.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                handler
+        );
+    }
+
+    // ---------- METRICS ----------
+
+    public static int getMaxPoolSize() {
+        return POOL_SIZE;
+    }
+
+    public static int getOpenConnections() {
+        return openCount.get();
+    }
+
+    public static int getIdleConnections() {
+        return idle.size();
+    }
+
+    public static int getActiveConnections() {
+        return Math.max(0, openCount.get() - idle.size());
+    }
+
+    public static long getBorrowCount() {
+        return borrowCount.get();
+    }
+
+    // Number of borrows that found the pool exhausted and had to block
+    public static long getWaitCount() {
+        return waitCount.get();
+    }
+
+    public static long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    public static double getAverageWaitMillis() {
+        long borrows = borrowCount.get();
+        return borrows == 0 ? 0.0 : totalWaitNanos.get() / 1_000_000.0 / borrows;
+    }
+
+    public static double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    public static String describeStats() {
+        return String.format(
+                "db pool: open=%d/%d idle=%d active=%d borrows=%d waits=%d timeouts=%d avgWait=%.3fms maxWait=%.3fms",
+                getOpenConnections(), POOL_SIZE, getIdleConnections(), getActiveConnections(),
+                getBorrowCount(), getWaitCount(), getTimeoutCount(),
+                getAverageWaitMillis(), getMaxWaitMillis()
+        );
+    }
+}
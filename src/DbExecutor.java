@@ -0,0 +1,107 @@
+import javax.swing.*;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs database work off the Swing event dispatch thread.
+ *
+ * Every task gets its own virtual thread, so a slow or locked SQLite file
+ * only parks that task (the pool in {@link Database} bounds real connections).
+ * Chain results back onto Swing with {@link #EDT}, e.g.
+ * {@code DbExecutor.supply(...).whenCompleteAsync(..., DbExecutor.EDT)}.
+ */
+public final class DbExecutor {
+
+    // Runs callbacks on the EDT via SwingUtilities.invokeLater
+    public static final Executor EDT = SwingUtilities::invokeLater;
+
+    private static final ExecutorService EXECUTOR =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("db-", 0).factory());
+
+    private DbExecutor() {
+    }
+
+    public static <T> CompletableFuture<T> supply(Callable<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, EXECUTOR);
+    }
+
+    public static CompletableFuture<Void> run(Runnable task) {
+        return CompletableFuture.runAsync(task, EXECUTOR);
+    }
+
+    /**
+     * An executor that runs its tasks one at a time, in the order they were submitted, for
+     * writes that must not overtake each other (the game session checkpoints). Still off the EDT.
+     */
+    public static Executor sequential() {
+        return new SerialExecutor();
+    }
+
+    private static final class SerialExecutor implements Executor {
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>(); // guarded by this
+        private boolean draining;
+
+        @Override
+        public synchronized void execute(Runnable task) {
+            tasks.add(task);
+            if (!draining) {
+                draining = true;
+                EXECUTOR.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Runnable task;
+                synchronized (this) {
+                    task = tasks.poll();
+                    if (task == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    System.out.println("Database task failed: " + e.getMessage());
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    // Unwraps the CompletionException that CompletableFuture puts around task failures
+    public static Throwable cause(Throwable t) {
+        return (t instanceof CompletionException && t.getCause() != null) ? t.getCause() : t;
+    }
+
+    /**
+     * Shows a loading state on a button (disabled + busy text + wait cursor).
+     * Returns the action that restores it; call that on the EDT when the work is done.
+     */
+    public static Runnable busy(AbstractButton button, String busyText) {
+        String oldText = button.getText();
+        java.awt.Cursor oldCursor = button.getCursor();
+
+        button.setEnabled(false);
+        button.setText(busyText);
+        button.setCursor(java.awt.Cursor.getPredefinedCursor(java.awt.Cursor.WAIT_CURSOR));
+
+        return () -> {
+            button.setText(oldText);
+            button.setCursor(oldCursor);
+            button.setEnabled(true);
+        };
+    }
+}
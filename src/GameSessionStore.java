@@ -0,0 +1,12 @@
+/**
+ * Saved game-time sessions (see CyberEatDiriApp.GameSessionDatabaseHelper).
+ */
+public interface GameSessionStore {
+
+    // {purchasedSeconds, endsAtEpochMillis}, or null if the user has none
+    long[] load(int userId);
+
+    boolean save(int userId, long purchasedSeconds, long endsAt);
+
+    void delete(int userId);
+}
@@ -0,0 +1,229 @@
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide cache of decoded + scaled icons, keyed by (asset path, size).
+ *
+ * Entries are pre-rendered BufferedImages, so a cache hit does no decoding or
+ * scaling at all. The cache is bounded by pixel memory (4 bytes per pixel) and
+ * evicts the least recently used icon first.
+ */
+public final class IconCache {
+
+    private static final long MAX_BYTES = Long.getLong("cybereatdiri.iconCache.maxBytes", 8L * 1024 * 1024);
+
+    // access-ordered so iteration starts at the least recently used entry
+    private static final LinkedHashMap<String, ImageIcon> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private static long currentBytes;
+
+    // icons being decoded right now, so concurrent requests share one decode
+    private static final ConcurrentHashMap<String, CompletableFuture<ImageIcon>> loading = new ConcurrentHashMap<>();
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong joins = new AtomicLong();   // waited on another thread's decode
+    private static final AtomicLong evictions = new AtomicLong();
+
+    private IconCache() {
+    }
+
+    /**
+     * Returns the icon at path (a classpath resource such as "/assets/pizza.png") scaled to size x size,
+     * or null if the resource is missing or unreadable.
+     * If another thread (e.g. AssetPreloader) is already rendering it, waits for that result instead.
+     */
+    public static ImageIcon get(String path, int size) {
+        if (path == null || path.isEmpty()) return null;
+
+        String key = key(path, size);
+        ImageIcon cached = lookup(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+
+        CompletableFuture<ImageIcon> mine = new CompletableFuture<>();
+        CompletableFuture<ImageIcon> existing = loading.putIfAbsent(key, mine);
+        if (existing != null) {
+            joins.incrementAndGet();
+            return existing.join();
+        }
+
+        misses.incrementAndGet();
+        ImageIcon icon = null;
+        try {
+            BufferedImage raw = decode(path);
+            icon = raw == null ? null : new ImageIcon(scale(raw, size));
+        } finally {
+            // always complete, or threads waiting on this key would hang
+            finish(key, mine, icon);
+        }
+        return icon;
+    }
+
+    /**
+     * Decodes an asset once and stores it at every given size. Sizes that are already
+     * cached (or being rendered elsewhere) are skipped; if all are, nothing is decoded.
+     */
+    public static void preload(String path, int... sizes) {
+        Map<Integer, CompletableFuture<ImageIcon>> claimed = new LinkedHashMap<>();
+        for (int size : sizes) {
+            String key = key(path, size);
+            if (lookup(key) != null) {
+                continue;
+            }
+            CompletableFuture<ImageIcon> mine = new CompletableFuture<>();
+            if (loading.putIfAbsent(key, mine) == null) {
+                claimed.put(size, mine);
+            }
+        }
+        if (claimed.isEmpty()) {
+            return;
+        }
+
+        BufferedImage raw = null;
+        try {
+            raw = decode(path);
+        } finally {
+            for (Map.Entry<Integer, CompletableFuture<ImageIcon>> e : claimed.entrySet()) {
+                ImageIcon icon = null;
+                try {
+                    icon = raw == null ? null : new ImageIcon(scale(raw, e.getKey()));
+                } finally {
+                    finish(key(path, e.getKey()), e.getValue(), icon);
+                }
+            }
+        }
+    }
+
+    private static String key(String path, int size) {
+        return path + "@" + size;
+    }
+
+    private static ImageIcon lookup(String key) {
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    private static void finish(String key, CompletableFuture<ImageIcon> future, ImageIcon icon) {
+        if (icon != null) {
+            synchronized (cache) {
+                ImageIcon previous = cache.put(key, icon);
+                if (previous != null) {
+                    currentBytes -= bytesOf(previous);
+                }
+                currentBytes += bytesOf(icon);
+                evictIfNeeded();
+            }
+        }
+        loading.remove(key);
+        future.complete(icon);
+    }
+
+    private static BufferedImage decode(String path) {
+        URL url = IconCache.class.getResource(path);
+        if (url == null) {
+            System.out.println("Image resource NOT found: " + path);
+            return null;
+        }
+
+        BufferedImage raw;
+        try {
+            raw = ImageIO.read(url);
+        } catch (IOException e) {
+            raw = null;
+        }
+        if (raw == null || raw.getWidth() <= 0 || raw.getHeight() <= 0) {
+            System.out.println("Failed to load image (bad size): " + path);
+            return null;
+        }
+        return raw;
+    }
+
+    // Halve repeatedly, then one bilinear pass: close to SCALE_SMOOTH quality, far cheaper
+    private static BufferedImage scale(BufferedImage src, int size) {
+        BufferedImage current = src;
+        int w = src.getWidth();
+        int h = src.getHeight();
+
+        do {
+            w = Math.max(size, w / 2);
+            h = Math.max(size, h / 2);
+            if (current.getWidth() <= size * 2 && current.getHeight() <= size * 2) {
+                w = size;
+                h = size;
+            }
+
+            BufferedImage next = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g2 = next.createGraphics();
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g2.drawImage(current, 0, 0, w, h, null);
+            g2.dispose();
+            current = next;
+        } while (w != size || h != size);
+
+        return current;
+    }
+
+    private static long bytesOf(ImageIcon icon) {
+        return 4L * icon.getIconWidth() * icon.getIconHeight();
+    }
+
+    // Caller holds the cache lock
+    private static void evictIfNeeded() {
+        Iterator<Map.Entry<String, ImageIcon>> it = cache.entrySet().iterator();
+        while (currentBytes > MAX_BYTES && it.hasNext()) {
+            Map.Entry<String, ImageIcon> eldest = it.next();
+            currentBytes -= bytesOf(eldest.getValue());
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    // ---------- METRICS ----------
+
+    public static long getHits() {
+        return hits.get();
+    }
+
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    public static long getJoins() {
+        return joins.get();
+    }
+
+    public static long getEvictions() {
+        return evictions.get();
+    }
+
+    public static int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    public static long getBytes() {
+        synchronized (cache) {
+            return currentBytes;
+        }
+    }
+
+    public static String describeStats() {
+        return String.format("icon cache: entries=%d bytes=%d/%d hits=%d misses=%d joins=%d evictions=%d",
+                size(), getBytes(), MAX_BYTES, getHits(), getMisses(), getJoins(), getEvictions());
+    }
+}
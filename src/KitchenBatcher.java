@@ -0,0 +1,219 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Groups the dishes of queued orders by SKU, so the kitchen can cook identical items
+ * together: "10x Crispy Fries -> PC 3, PC 7, PC 12".
+ *
+ * Each SKU has a lane of pending portions (one per order) sorted by order time. A batch
+ * is the lane's sliding window: the oldest portion plus everything ordered within
+ * BATCH_WINDOW_MILLIS after it, so the first customer never waits on orders placed long
+ * after theirs. The window's quantity and per-PC counts are running totals: a new order
+ * adds to them, and when the oldest portion leaves, the window end only moves forward,
+ * so every portion enters a window once. Nothing is rescanned on an update; only an order
+ * older than the lane's head (a station with a slow clock) rebuilds that one lane.
+ *
+ * Not thread-safe: KitchenQueue owns it and calls it under its own lock, which keeps
+ * the batches in step with the queue.
+ */
+public final class KitchenBatcher {
+
+    static final long BATCH_WINDOW_MILLIS =
+            TimeUnit.MINUTES.toMillis(Long.getLong("cybereatdiri.kitchen.batchWindowMinutes", 5L));
+
+    /** One batch as shown on the kitchen screen. */
+    public static final class Batch {
+        final String sku;
+        final String name;
+        final int qty;
+        final List<String> pcs;    // in the order they joined the batch
+        final long oldest;         // order time of the oldest portion (epoch millis)
+        final int waiting;         // same dish, ordered too late for this batch
+
+        Batch(String sku, String name, int qty, List<String> pcs, long oldest, int waiting) {
+            this.sku = sku;
+            this.name = name;
+            this.qty = qty;
+            this.pcs = pcs;
+            this.oldest = oldest;
+            this.waiting = waiting;
+        }
+    }
+
+    /** One order's quantity of one SKU. */
+    private static final class Portion {
+        final Lane lane;
+        final long orderId;
+        final long ts;
+        final String pc;
+        int qty;
+
+        Portion(Lane lane, CyberEatDiriApp.Order o) {
+            this.lane = lane;
+            this.orderId = o.id;
+            this.ts = o.timestamp;
+            this.pc = o.pcNumber;
+        }
+    }
+
+    // oldest order first; ties by id
+    private static final Comparator<Portion> BY_TIME =
+            Comparator.<Portion>comparingLong(p -> p.ts).thenComparingLong(p -> p.orderId);
+
+    /** Pending portions of one SKU and its current window, [pending.first() .. windowEnd]. */
+    private static final class Lane {
+        final String sku;
+        final String name;
+        final TreeSet<Portion> pending = new TreeSet<>(BY_TIME);
+        int totalQty;
+
+        Portion windowEnd;         // last portion in the window; null when the lane is empty
+        int windowQty;
+        final Map<String, Integer> pcQty = new LinkedHashMap<>();
+
+        Lane(String sku, String name) {
+            this.sku = sku;
+            this.name = name;
+        }
+
+        void add(Portion p) {
+            pending.add(p);
+            totalQty += p.qty;
+
+            if (pending.first() == p) {
+                if (pending.size() == 1) {
+                    windowEnd = p;
+                    enter(p);
+                } else {
+                    rebuild(); // older than the head: the window starts earlier now
+                }
+            } else if (p.ts <= pending.first().ts + BATCH_WINDOW_MILLIS) {
+                // the window is every portion up to head + window, so p is in it
+                enter(p);
+                if (BY_TIME.compare(p, windowEnd) > 0) {
+                    windowEnd = p;
+                }
+            }
+        }
+
+        void remove(Portion p) {
+            boolean inWindow = BY_TIME.compare(p, windowEnd) <= 0;
+            boolean wasHead = pending.first() == p;
+            if (p == windowEnd) {
+                windowEnd = pending.lower(p);
+            }
+            pending.remove(p);
+            totalQty -= p.qty;
+
+            if (inWindow) {
+                leave(p);
+            }
+            if (wasHead) {
+                slide();
+            }
+        }
+
+        // Pulls in portions that now fall within head + window; the end never moves back
+        private void slide() {
+            if (pending.isEmpty()) {
+                windowEnd = null;
+                return;
+            }
+            long limit = pending.first().ts + BATCH_WINDOW_MILLIS;
+            Portion next = windowEnd == null ? pending.first() : pending.higher(windowEnd);
+            while (next != null && next.ts <= limit) {
+                enter(next);
+                windowEnd = next;
+                next = pending.higher(next);
+            }
+        }
+
+        private void rebuild() {
+            windowEnd = null;
+            windowQty = 0;
+            pcQty.clear();
+            slide();
+        }
+
+        private void enter(Portion p) {
+            windowQty += p.qty;
+            pcQty.merge(p.pc, p.qty, Integer::sum);
+        }
+
+        private void leave(Portion p) {
+            windowQty -= p.qty;
+            pcQty.computeIfPresent(p.pc, (pc, qty) -> qty > p.qty ? qty - p.qty : null);
+        }
+    }
+
+    private final Map<String, Lane> lanes = new HashMap<>();
+    private final Map<Long, List<Portion>> byOrder = new HashMap<>();
+
+    /** Adds a queued order's dishes; an order already added is ignored. */
+    void add(CyberEatDiriApp.Order o) {
+        if (o.items.isEmpty() || byOrder.containsKey(o.id)) {
+            return; // legacy orders have no structured lines to batch
+        }
+
+        // one portion per SKU, even if a line repeats
+        Map<String, Portion> portions = new LinkedHashMap<>();
+        for (OrderLine line : o.items) {
+            Portion p = portions.get(line.getSku());
+            if (p == null) {
+                Lane lane = lanes.computeIfAbsent(line.getSku(), sku -> new Lane(sku, line.getName()));
+                p = new Portion(lane, o);
+                portions.put(line.getSku(), p);
+            }
+            p.qty += line.getQty();
+        }
+
+        for (Portion p : portions.values()) {
+            p.lane.add(p);
+        }
+        byOrder.put(o.id, new ArrayList<>(portions.values()));
+    }
+
+    /** Takes an order's dishes out (it was started or closed); unknown ids are ignored. */
+    void remove(long orderId) {
+        List<Portion> portions = byOrder.remove(orderId);
+        if (portions == null) {
+            return;
+        }
+        for (Portion p : portions) {
+            p.lane.remove(p);
+            if (p.lane.pending.isEmpty()) {
+                lanes.remove(p.lane.sku);
+            }
+        }
+    }
+
+    /** Current batches, the one waiting longest first. Costs one line per dish and PC. */
+    List<Batch> getBatches() {
+        List<Batch> batches = new ArrayList<>(lanes.size());
+        for (Lane lane : lanes.values()) {
+            batches.add(new Batch(lane.sku, lane.name, lane.windowQty, new ArrayList<>(lane.pcQty.keySet()),
+                    lane.pending.first().ts, lane.totalQty - lane.windowQty));
+        }
+        batches.sort(Comparator.<Batch>comparingLong(b -> b.oldest).thenComparing(b -> b.sku));
+        return batches;
+    }
+
+    /** Ids of the orders in a SKU's current batch, oldest first; empty if there is none. */
+    List<Long> getBatchOrderIds(String sku) {
+        Lane lane = lanes.get(sku);
+        List<Long> ids = new ArrayList<>();
+        if (lane == null) {
+            return ids;
+        }
+        for (Portion p : lane.pending.headSet(lane.windowEnd, true)) {
+            ids.add(p.orderId);
+        }
+        return ids;
+    }
+}
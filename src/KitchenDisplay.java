@@ -0,0 +1,294 @@
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Kitchen screen: what to cook next and what is waiting to be delivered.
+ *
+ * Left, the queue in KitchenQueue's order (start at the top); middle, the same queue
+ * grouped by dish (KitchenBatcher), longest-waiting batch first; right, orders being
+ * prepared. "Start next" takes the top of the queue, "Start batch" every order in the
+ * selected batch, "Delivered" closes the selected order once it reaches its PC. The lists are redrawn when the bus reports a change;
+ * nothing polls the database. Orders past their start-by time show in red.
+ *
+ * Run on the kitchen PC: java KitchenDisplay. It owns the database and also starts
+ * the OrderServer, so stations point -Dcybereatdiri.server at this machine.
+ */
+public final class KitchenDisplay implements OrderEventBus.Listener {
+
+    private static final Color BG = new Color(0x1a0a0a);
+    private static final Color CARD = new Color(0x2d1414);
+    private static final Color LATE = new Color(0xFF6B6B);
+    private static final int AGE_REFRESH_MS = 30_000;
+
+    private final KitchenQueue queue;
+    private final DefaultListModel<CyberEatDiriApp.Order> queuedModel = new DefaultListModel<>();
+    private final DefaultListModel<CyberEatDiriApp.Order> preparingModel = new DefaultListModel<>();
+    private final DefaultListModel<KitchenBatcher.Batch> batchModel = new DefaultListModel<>();
+
+    private JFrame frame;
+    private JList<CyberEatDiriApp.Order> queuedList;
+    private JList<CyberEatDiriApp.Order> preparingList;
+    private JList<KitchenBatcher.Batch> batchList;
+    private JLabel queuedHeader;
+    private JLabel preparingHeader;
+    private JLabel batchHeader;
+
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean(); // coalesces bursts of events into one redraw
+
+    public KitchenDisplay(KitchenQueue queue) {
+        this.queue = queue;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String err = SchemaMigrator.migrate();
+        if (err != null) {
+            System.out.println("Kitchen not started: " + err);
+            System.exit(1);
+        }
+
+        // Always the local database: this process is where orders are committed and published
+        KitchenQueue queue = new KitchenQueue(new CyberEatDiriApp.OrderDatabaseHelper());
+        queue.start();
+
+        OrderServer server = new OrderServer();
+        server.start(null, Integer.getInteger("cybereatdiri.server.port", StoreProtocol.DEFAULT_PORT));
+        System.out.println("Kitchen order server listening on port " + server.getPort());
+
+        KitchenDisplay display = new KitchenDisplay(queue);
+        SwingUtilities.invokeLater(display::show);
+    }
+
+    public void show() {
+        frame = new JFrame("CYBER-EATDIRI KITCHEN");
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setSize(1400, 750);
+        frame.setLocationRelativeTo(null);
+
+        queuedList = buildList(queuedModel, new OrderCellRenderer());
+        preparingList = buildList(preparingModel, new OrderCellRenderer());
+        batchList = buildList(batchModel, new BatchCellRenderer());
+        queuedHeader = header();
+        preparingHeader = header();
+        batchHeader = header();
+
+        JButton startButton = button("Start next");
+        startButton.addActionListener(e -> {
+            Runnable done = DbExecutor.busy(startButton, "Starting...");
+            DbExecutor.supply(queue::startNext).whenCompleteAsync((started, ex) -> {
+                done.run();
+                if (ex != null) {
+                    System.out.println("Kitchen: start failed: " + DbExecutor.cause(ex).getMessage());
+                } else if (started == null) {
+                    JOptionPane.showMessageDialog(frame, "Nothing in the queue.");
+                }
+            }, DbExecutor.EDT);
+        });
+
+        JButton batchButton = button("Start batch");
+        batchButton.addActionListener(e -> {
+            KitchenBatcher.Batch selected = batchList.getSelectedValue();
+            if (selected == null) {
+                JOptionPane.showMessageDialog(frame, "Select the batch to cook.");
+                return;
+            }
+            Runnable done = DbExecutor.busy(batchButton, "Starting...");
+            DbExecutor.supply(() -> queue.startBatch(selected.sku)).whenCompleteAsync((started, ex) -> {
+                done.run();
+                if (ex != null) {
+                    System.out.println("Kitchen: batch start failed: " + DbExecutor.cause(ex).getMessage());
+                }
+            }, DbExecutor.EDT);
+        });
+
+        JButton deliverButton = button("Delivered");
+        deliverButton.addActionListener(e -> {
+            CyberEatDiriApp.Order selected = preparingList.getSelectedValue();
+            if (selected == null) {
+                JOptionPane.showMessageDialog(frame, "Select the order that was delivered.");
+                return;
+            }
+            DbExecutor.run(() -> queue.deliver(selected.id));
+        });
+
+        JPanel root = new JPanel(new GridLayout(1, 3, 15, 0));
+        root.setBackground(BG);
+        root.setBorder(new EmptyBorder(15, 15, 15, 15));
+        root.add(column(queuedHeader, queuedList, startButton));
+        root.add(column(batchHeader, batchList, batchButton));
+        root.add(column(preparingHeader, preparingList, deliverButton));
+        frame.setContentPane(root);
+
+        OrderEventBus.subscribe(this);
+        refresh();
+
+        // Ages and lateness change with the clock alone
+        Timer ageTimer = new Timer(AGE_REFRESH_MS, e -> {
+            queuedList.repaint();
+            batchList.repaint();
+            preparingList.repaint();
+        });
+        ageTimer.start();
+
+        frame.setVisible(true);
+    }
+
+    @Override
+    public void orderChanged(OrderEventBus.OrderEvent event) {
+        if (refreshScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::refresh);
+        }
+    }
+
+    private void refresh() {
+        refreshScheduled.set(false);
+
+        CyberEatDiriApp.Order selected = preparingList.getSelectedValue();
+        KitchenBatcher.Batch selectedBatch = batchList.getSelectedValue();
+        replace(queuedModel, queue.getQueued());
+        replace(preparingModel, queue.getPreparing());
+        replace(batchModel, queue.getBatches());
+        if (selected != null) {
+            preparingList.setSelectedValue(selected, false);
+        }
+        if (selectedBatch != null) {
+            // batches are rebuilt on every refresh; keep the selection on the same dish
+            for (int i = 0; i < batchModel.size(); i++) {
+                if (batchModel.get(i).sku.equals(selectedBatch.sku)) {
+                    batchList.setSelectedIndex(i);
+                    break;
+                }
+            }
+        }
+
+        queuedHeader.setText("Queue (" + queuedModel.size() + ")");
+        batchHeader.setText("Batches (" + batchModel.size() + ")");
+        preparingHeader.setText("Preparing (" + preparingModel.size() + ")");
+    }
+
+    private static <T> void replace(DefaultListModel<T> model, List<T> values) {
+        model.clear();
+        model.addAll(values);
+    }
+
+    // ---------- UI ----------
+
+    private static <T> JList<T> buildList(DefaultListModel<T> model, ListCellRenderer<Object> renderer) {
+        JList<T> list = new JList<>(model);
+        list.setBackground(BG);
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setCellRenderer(renderer);
+        return list;
+    }
+
+    private static JPanel column(JLabel header, JList<?> list, JButton action) {
+        JPanel panel = new JPanel(new BorderLayout(0, 10));
+        panel.setOpaque(false);
+        panel.add(header, BorderLayout.NORTH);
+
+        JScrollPane scroll = new JScrollPane(list);
+        scroll.setBorder(BorderFactory.createLineBorder(new Color(0x4A0000), 2));
+        panel.add(scroll, BorderLayout.CENTER);
+        panel.add(action, BorderLayout.SOUTH);
+        return panel;
+    }
+
+    private static JLabel header() {
+        JLabel label = new JLabel();
+        label.setFont(AppFonts.get(Font.BOLD, 20));
+        label.setForeground(Color.WHITE);
+        return label;
+    }
+
+    private static JButton button(String text) {
+        JButton b = new JButton(text);
+        b.setFont(AppFonts.get(Font.BOLD, 16));
+        b.setFocusPainted(false);
+        return b;
+    }
+
+    /** Ticket: order number, PC, age, then one line per dish. */
+    private static final class OrderCellRenderer extends DefaultListCellRenderer {
+
+        OrderCellRenderer() {
+            setVerticalAlignment(TOP);
+            setFont(AppFonts.get(Font.PLAIN, 14));
+        }
+
+        @Override
+        public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                      boolean isSelected, boolean cellHasFocus) {
+            super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+            CyberEatDiriApp.Order o = (CyberEatDiriApp.Order) value;
+
+            long now = System.currentTimeMillis();
+            long ageMinutes = TimeUnit.MILLISECONDS.toMinutes(Math.max(0, now - o.timestamp));
+            boolean late = o.status == OrderStatus.QUEUED && now > KitchenQueue.startBy(o);
+
+            StringBuilder html = new StringBuilder("<html><b>#").append(o.id)
+                    .append(" &middot; ").append(escape(o.pcNumber)).append("</b> &middot; ")
+                    .append(ageMinutes).append(" min");
+            if (late) {
+                html.append(" &middot; LATE");
+            }
+            for (OrderLine line : o.items) {
+                html.append("<br>").append(line.getQty()).append("x ").append(escape(line.getName()));
+            }
+            if (o.items.isEmpty()) {
+                html.append("<br>").append(escape(o.itemsSummary).replace("\n", "<br>"));
+            }
+            setText(html.append("</html>").toString());
+
+            setBorder(new EmptyBorder(8, 10, 8, 10));
+            setBackground(isSelected ? new Color(0x8B0000) : CARD);
+            setForeground(late ? LATE : Color.WHITE);
+            return this;
+        }
+
+    }
+
+    /** Batch: how many of which dish, then the PCs it goes to. */
+    private static final class BatchCellRenderer extends DefaultListCellRenderer {
+
+        BatchCellRenderer() {
+            setVerticalAlignment(TOP);
+            setFont(AppFonts.get(Font.PLAIN, 14));
+        }
+
+        @Override
+        public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                      boolean isSelected, boolean cellHasFocus) {
+            super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+            KitchenBatcher.Batch b = (KitchenBatcher.Batch) value;
+
+            long waitMinutes = TimeUnit.MILLISECONDS.toMinutes(Math.max(0, System.currentTimeMillis() - b.oldest));
+            StringBuilder html = new StringBuilder("<html><b>Cook ").append(b.qty).append("x ")
+                    .append(escape(b.name)).append("</b> &middot; ").append(waitMinutes).append(" min<br>&rarr; ");
+            for (int i = 0; i < b.pcs.size(); i++) {
+                if (i > 0) {
+                    html.append(", ");
+                }
+                html.append(escape(b.pcs.get(i)));
+            }
+            if (b.waiting > 0) {
+                html.append("<br>(+").append(b.waiting).append(" in the next batch)");
+            }
+            setText(html.append("</html>").toString());
+
+            setBorder(new EmptyBorder(8, 10, 8, 10));
+            setBackground(isSelected ? new Color(0x8B0000) : CARD);
+            setForeground(Color.WHITE);
+            return this;
+        }
+    }
+
+    private static String escape(String s) {
+        if (s == null) {
+            return "";
+        }
+        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
@@ -0,0 +1,212 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kitchen dispatch: open orders waiting to be cooked, most urgent first.
+ *
+ * An order's priority is its start-by time: when it was placed, plus the service
+ * target, minus how long its slowest dish takes. Older orders and slower dishes both
+ * move up, and the key is fixed once the order arrives, so the set never re-sorts.
+ * A sorted set rather than a heap, so a whole batch can be pulled out in O(log n) per order.
+ * Queued orders are also grouped by dish in a KitchenBatcher, kept under the same lock.
+ * New orders arrive as QUEUED events (OrderEventBus, published when they commit);
+ * on start the open orders already in the database are loaded too. Every move
+ * (preparing, delivered to the PC) is saved with OrderStore.updateStatus and then
+ * published on the bus, so displays are pushed the change instead of polling.
+ */
+public final class KitchenQueue implements OrderEventBus.Listener {
+
+    static final long SERVICE_TARGET_MILLIS =
+            TimeUnit.MINUTES.toMillis(Long.getLong("cybereatdiri.kitchen.targetMinutes", 20L));
+
+    private static final int DEFAULT_PREP_MINUTES = 5; // SKU not on the menu (renamed or retired item)
+    private static final int MAX_OPEN_ON_START = 1000;
+
+    private static final Map<String, Integer> PREP_MINUTES = new HashMap<>();
+
+    static {
+        for (CyberEatDiriApp.MenuItem item : OrderingService.FOOD_MENU) {
+            PREP_MINUTES.put(item.sku, item.prepMinutes);
+        }
+    }
+
+    /** A queued order with its priority worked out once. */
+    private static final class Entry {
+        final CyberEatDiriApp.Order order;
+        final long startBy;
+
+        Entry(CyberEatDiriApp.Order order) {
+            this.order = order;
+            this.startBy = startBy(order);
+        }
+    }
+
+    // earliest start-by first; ties go to the older order
+    private static final Comparator<Entry> URGENCY =
+            Comparator.<Entry>comparingLong(e -> e.startBy).thenComparingLong(e -> e.order.id);
+
+    private final OrderStore store;
+
+    // All guarded by this
+    private final TreeSet<Entry> queued = new TreeSet<>(URGENCY);
+    private final Map<Long, Entry> queuedById = new HashMap<>();
+    private final Map<Long, CyberEatDiriApp.Order> preparing = new LinkedHashMap<>();
+    private final Set<Long> open = new HashSet<>(); // ids in either, so a repeated event can't add an order twice
+    private final KitchenBatcher batcher = new KitchenBatcher(); // queued orders only
+
+    public KitchenQueue(OrderStore store) {
+        this.store = store;
+    }
+
+    /** Starts listening for new orders and loads the ones still open from before a restart. */
+    public void start() {
+        OrderEventBus.subscribe(this); // first, so nothing committed during the load is missed
+        for (CyberEatDiriApp.Order o : store.getOpenOrders(MAX_OPEN_ON_START)) {
+            add(o);
+        }
+    }
+
+    public void stop() {
+        OrderEventBus.unsubscribe(this);
+    }
+
+    @Override
+    public void orderChanged(OrderEventBus.OrderEvent event) {
+        if (event.status == OrderStatus.QUEUED) {
+            add(event.order);
+        }
+        // PREPARING / DELIVERED events come from this queue itself
+    }
+
+    private synchronized void add(CyberEatDiriApp.Order o) {
+        if (!open.add(o.id)) {
+            return;
+        }
+        if (o.status == OrderStatus.PREPARING) {
+            preparing.put(o.id, o); // was being cooked when the kitchen restarted
+        } else {
+            Entry e = new Entry(o);
+            queued.add(e);
+            queuedById.put(o.id, e);
+            batcher.add(o);
+        }
+    }
+
+    // ---------- MOVES ----------
+
+    /** Takes the most urgent queued order and marks it preparing; null if nothing is waiting. */
+    public CyberEatDiriApp.Order startNext() {
+        CyberEatDiriApp.Order o;
+        synchronized (this) {
+            Entry e = queued.pollFirst();
+            if (e == null) {
+                return null;
+            }
+            queuedById.remove(e.order.id);
+            batcher.remove(e.order.id);
+            o = e.order;
+            preparing.put(o.id, o);
+        }
+        save(o, OrderStatus.PREPARING);
+        return o;
+    }
+
+    /** Starts one particular queued order (e.g. as part of a batch); null if it isn't queued. */
+    public CyberEatDiriApp.Order start(long orderId) {
+        CyberEatDiriApp.Order o;
+        synchronized (this) {
+            Entry e = queuedById.remove(orderId);
+            if (e == null) {
+                return null;
+            }
+            queued.remove(e);
+            batcher.remove(orderId);
+            o = e.order;
+            preparing.put(o.id, o);
+        }
+        save(o, OrderStatus.PREPARING);
+        return o;
+    }
+
+    /** Marks a preparing order as delivered to its PC; false if it isn't being prepared. */
+    public boolean deliver(long orderId) {
+        CyberEatDiriApp.Order o;
+        synchronized (this) {
+            o = preparing.remove(orderId);
+            if (o == null) {
+                return false;
+            }
+            open.remove(orderId);
+        }
+        save(o, OrderStatus.DELIVERED);
+        return true;
+    }
+
+    /** Starts every order in the SKU's current batch; returns how many were started. */
+    public int startBatch(String sku) {
+        List<Long> ids;
+        synchronized (this) {
+            ids = batcher.getBatchOrderIds(sku);
+        }
+        int started = 0;
+        for (long id : ids) {
+            if (start(id) != null) {
+                started++;
+            }
+        }
+        return started;
+    }
+
+    // Database first, then the bus; the kitchen keeps going if the write fails (the cook already moved on)
+    private void save(CyberEatDiriApp.Order o, OrderStatus status) {
+        if (!store.updateStatus(o.id, status)) {
+            System.out.println("Kitchen: could not save order " + o.id + " as " + status.dbValue);
+        }
+        OrderEventBus.publish(o, status);
+    }
+
+    // ---------- READS ----------
+
+    /** Queued orders, most urgent first. */
+    public synchronized List<CyberEatDiriApp.Order> getQueued() {
+        List<CyberEatDiriApp.Order> list = new ArrayList<>(queued.size());
+        for (Entry e : queued) {
+            list.add(e.order);
+        }
+        return list;
+    }
+
+    /** Orders being prepared, in the order they were started. */
+    public synchronized List<CyberEatDiriApp.Order> getPreparing() {
+        return new ArrayList<>(preparing.values());
+    }
+
+    /** Identical dishes across queued orders, grouped for cooking together. */
+    public synchronized List<KitchenBatcher.Batch> getBatches() {
+        return batcher.getBatches();
+    }
+
+    // ---------- PRIORITY ----------
+
+    /** Longest prep time among the order's dishes (they are cooked side by side). */
+    static long prepMillis(CyberEatDiriApp.Order o) {
+        int minutes = 0;
+        for (OrderLine line : o.items) {
+            minutes = Math.max(minutes, PREP_MINUTES.getOrDefault(line.getSku(), DEFAULT_PREP_MINUTES));
+        }
+        return TimeUnit.MINUTES.toMillis(o.items.isEmpty() ? DEFAULT_PREP_MINUTES : minutes);
+    }
+
+    /** Latest time (epoch millis) the kitchen can start the order and still serve it within the target. */
+    static long startBy(CyberEatDiriApp.Order o) {
+        return o.timestamp + SERVICE_TARGET_MILLIS - prepMillis(o);
+    }
+}
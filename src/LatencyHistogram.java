@@ -0,0 +1,92 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with log-spaced buckets (4 per power of two,
+ * so any percentile is within ~19% of the true value).
+ * Covers 1 µs up to about 2^31 µs; anything slower lands in the last bucket.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 4;
+    private static final int BUCKETS = 32 * SUB_BUCKETS;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sumMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public void recordNanos(long nanos) {
+        long micros = Math.max(1, nanos / 1_000);
+        counts.incrementAndGet(bucketFor(micros));
+        total.incrementAndGet();
+        sumMicros.addAndGet(micros);
+        maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    // Records the time elapsed since a System.nanoTime() start mark
+    public void recordSince(long startNanos) {
+        recordNanos(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() {
+        return total.get();
+    }
+
+    public double getMeanMillis() {
+        long n = total.get();
+        return n == 0 ? 0.0 : sumMicros.get() / 1_000.0 / n;
+    }
+
+    public double getMaxMillis() {
+        return maxMicros.get() / 1_000.0;
+    }
+
+    /**
+     * @param percentile 0..100, e.g. 99 for p99
+     * @return upper bound of the bucket holding that percentile, in milliseconds
+     */
+    public double getPercentileMillis(double percentile) {
+        long n = total.get();
+        if (n == 0) {
+            return 0.0;
+        }
+
+        long rank = (long) Math.ceil(n * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBoundMicros(i), maxMicros.get()) / 1_000.0;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    public String describe() {
+        return String.format("%s: n=%d mean=%.2fms p50=%.2fms p90=%.2fms p99=%.2fms max=%.2fms",
+                name, getCount(), getMeanMillis(),
+                getPercentileMillis(50), getPercentileMillis(90), getPercentileMillis(99),
+                getMaxMillis());
+    }
+
+    private static int bucketFor(long micros) {
+        int log2 = 63 - Long.numberOfLeadingZeros(micros);
+        // next two bits below the leading one pick the sub-bucket
+        int sub = log2 >= 2 ? (int) ((micros >>> (log2 - 2)) & (SUB_BUCKETS - 1))
+                : (int) ((micros << (2 - log2)) & (SUB_BUCKETS - 1));
+        return Math.min(BUCKETS - 1, log2 * SUB_BUCKETS + sub);
+    }
+
+    private static long upperBoundMicros(int bucket) {
+        int log2 = bucket / SUB_BUCKETS;
+        int sub = bucket % SUB_BUCKETS;
+        // bucket covers [2^log2 * (1 + sub/4), 2^log2 * (1 + (sub+1)/4))
+        return (long) Math.ceil(Math.pow(2, log2) * (1 + (sub + 1) / (double) SUB_BUCKETS));
+    }
+}
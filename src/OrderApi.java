@@ -0,0 +1,446 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * REST API for phones and kiosks, on the JDK's built-in HttpServer.
+ *
+ * Same rules as the station window (OrderingService), same stores (Stores: local
+ * SQLite or the order server). Every request runs on its own virtual thread.
+ * Requests take form-encoded bodies or query parameters; responses are JSON.
+ * After POST /api/login, send "Authorization: Bearer <token>".
+ *
+ *   GET    /api/menu
+ *   POST   /api/register      email, phone, password
+ *   POST   /api/login         email, password        -> token
+ *   GET    /api/cart
+ *   POST   /api/cart/items    sku, qty
+ *   DELETE /api/cart/items    sku
+ *   DELETE /api/cart
+ *   POST   /api/checkout      pc, payment            -> the order (journaled; id -1 until the writer commits it, ref identifies it)
+ *   GET    /api/orders        before, limit          -> history page, newest first
+ *
+ * Run: java OrderApi  (-Dcybereatdiri.api.port=8080; add -Dcybereatdiri.server=... to use the order server)
+ */
+public final class OrderApi implements AutoCloseable {
+
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int MAX_PAGE = 100;
+    private static final long SESSION_IDLE_MILLIS = 4 * 60 * 60 * 1000L;
+
+    /** One logged-in phone: its user and cart. The cart is only touched while holding the session's lock. */
+    private static final class ApiSession {
+        final UserPrincipal user;
+        final Cart cart = new Cart();
+        volatile long lastUsed = System.currentTimeMillis();
+
+        ApiSession(UserPrincipal user) {
+            this.user = user;
+        }
+    }
+
+    /** Ends a request early with an error status; caught in handle(). */
+    private static final class ApiException extends Exception {
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private final UserStore users = Stores.users();
+    private final OrderingService ordering = new OrderingService(Stores.orders());
+
+    private final Map<String, ApiSession> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public static void main(String[] args) throws Exception {
+        int port = Integer.getInteger("cybereatdiri.api.port", 8080);
+        String bind = System.getProperty("cybereatdiri.api.bind");
+
+        if (!Stores.isRemote()) {
+            String err = SchemaMigrator.migrate();
+            if (err != null) {
+                System.out.println("Order API not started: " + err);
+                System.exit(1);
+            }
+        }
+        if (!OrderWriter.start()) {
+            System.exit(1); // checkouts could not be saved
+        }
+
+        OrderApi api = new OrderApi();
+        api.start(bind == null ? null : InetAddress.getByName(bind), port);
+        System.out.println("Order API listening on http://localhost:" + api.getPort() + "/api/menu");
+    }
+
+    // ---------- LIFECYCLE ----------
+
+    /** Binds and starts serving; port 0 picks a free one. bindAddress null = all interfaces. */
+    public synchronized void start(InetAddress bindAddress, int port) throws IOException {
+        // Replies are small: send them at once instead of waiting for the client's delayed ACK.
+        // Read by the JDK when its first HttpServer is created.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        server = HttpServer.create(new InetSocketAddress(bindAddress, port), 256);
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("api-", 0).factory());
+        server.setExecutor(executor);
+        server.createContext("/api/", this::handle);
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdown();
+        }
+    }
+
+    // ---------- ROUTING ----------
+
+    private void handle(HttpExchange ex) throws IOException {
+        try (ex) {
+            String method = ex.getRequestMethod();
+            String path = ex.getRequestURI().getPath();
+
+            try {
+                Map<String, String> params = params(ex);
+                String json;
+                int status = 200;
+
+                if (path.equals("/api/menu") && method.equals("GET")) {
+                    json = MENU_JSON;
+                } else if (path.equals("/api/register") && method.equals("POST")) {
+                    json = register(params);
+                    status = 201;
+                } else if (path.equals("/api/login") && method.equals("POST")) {
+                    json = login(params);
+                } else if (path.equals("/api/cart") && method.equals("GET")) {
+                    ApiSession s = session(ex);
+                    synchronized (s) {
+                        json = cartJson(s.cart);
+                    }
+                } else if (path.equals("/api/cart") && method.equals("DELETE")) {
+                    ApiSession s = session(ex);
+                    synchronized (s) {
+                        s.cart.clear();
+                        json = cartJson(s.cart);
+                    }
+                } else if (path.equals("/api/cart/items") && method.equals("POST")) {
+                    json = addItem(session(ex), params);
+                } else if (path.equals("/api/cart/items") && method.equals("DELETE")) {
+                    json = removeItem(session(ex), params);
+                } else if (path.equals("/api/checkout") && method.equals("POST")) {
+                    json = checkout(session(ex), params);
+                    status = 201;
+                } else if (path.equals("/api/orders") && method.equals("GET")) {
+                    json = history(session(ex), params);
+                } else {
+                    throw new ApiException(404, "No such endpoint: " + method + " " + path);
+                }
+
+                send(ex, status, json);
+
+            } catch (ApiException e) {
+                send(ex, e.status, "{\"error\":" + quote(e.getMessage()) + "}");
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                send(ex, 500, "{\"error\":\"Internal error\"}");
+            }
+        }
+    }
+
+    // ---------- ENDPOINTS ----------
+
+    private String register(Map<String, String> p) throws ApiException {
+        String email = required(p, "email");
+        String phone = required(p, "phone");
+        String password = required(p, "password");
+
+        if (!users.registerUser(email, phone, password)) {
+            String err = users.getLastError();
+            throw new ApiException(err != null && err.startsWith("Email") ? 409 : 503,
+                    err == null ? "Could not register" : err);
+        }
+        return "{\"registered\":true}";
+    }
+
+    private String login(Map<String, String> p) throws ApiException {
+        UserPrincipal user = users.authenticate(required(p, "email"), required(p, "password"));
+        if (user == null) {
+            String err = users.getLastError();
+            throw err == null ? new ApiException(401, "Wrong email or password") : new ApiException(503, err);
+        }
+
+        // logins are rare next to cart calls: a good moment to forget abandoned sessions
+        long cutoff = System.currentTimeMillis() - SESSION_IDLE_MILLIS;
+        sessions.values().removeIf(s -> s.lastUsed < cutoff);
+
+        byte[] bytes = new byte[24];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        sessions.put(token, new ApiSession(user));
+
+        return "{\"token\":" + quote(token) + ",\"userId\":" + user.getId() + "}";
+    }
+
+    private String addItem(ApiSession s, Map<String, String> p) throws ApiException {
+        String sku = required(p, "sku");
+        int qty = intParam(p, "qty", 1);
+        synchronized (s) {
+            if (!ordering.addToCart(s.cart, sku, qty)) {
+                throw new ApiException(400, "Unknown sku, or quantity not in 1.." + OrderingService.MAX_QUANTITY
+                        + " (counting what is already in the cart)");
+            }
+            return cartJson(s.cart);
+        }
+    }
+
+    private String removeItem(ApiSession s, Map<String, String> p) throws ApiException {
+        String sku = required(p, "sku");
+        synchronized (s) {
+            if (!ordering.removeFromCart(s.cart, sku)) {
+                throw new ApiException(404, "Not in cart: " + sku);
+            }
+            return cartJson(s.cart);
+        }
+    }
+
+    private String checkout(ApiSession s, Map<String, String> p) throws ApiException {
+        String pc = p.getOrDefault("pc", "").trim();
+        String payment = required(p, "payment");
+        if (!OrderingService.PAYMENT_METHODS.contains(payment)) {
+            throw new ApiException(400, "payment must be one of " + OrderingService.PAYMENT_METHODS);
+        }
+
+        CyberEatDiriApp.Order order;
+        synchronized (s) {
+            order = ordering.takeOrder(s.cart, pc.isEmpty() ? OrderingService.NO_PC : pc, payment);
+        }
+        if (order == null) {
+            throw new ApiException(409, "Cart is empty");
+        }
+
+        try {
+            ordering.submit(order, s.user.getId());
+        } catch (IOException | IllegalStateException e) {
+            e.printStackTrace();
+            // not saved: give the phone its cart back so it can retry
+            synchronized (s) {
+                for (OrderLine line : order.items) {
+                    ordering.addToCart(s.cart, line.getSku(), line.getQty());
+                }
+            }
+            throw new ApiException(503, "Order could not be saved, please try again");
+        }
+        return orderJson(order);
+    }
+
+    private String history(ApiSession s, Map<String, String> p) throws ApiException {
+        long before = longParam(p, "before", Long.MAX_VALUE);
+        int limit = Math.min(MAX_PAGE, intParam(p, "limit", 20));
+
+        List<CyberEatDiriApp.Order> page = ordering.history(s.user.getId(), before, limit);
+        StringBuilder sb = new StringBuilder("{\"orders\":[");
+        for (int i = 0; i < page.size(); i++) {
+            if (i > 0) sb.append(',');
+            sb.append(orderJson(page.get(i)));
+        }
+        return sb.append("]}").toString();
+    }
+
+    // ---------- JSON ----------
+
+    // The menu never changes while running, so it is rendered once
+    private static final String MENU_JSON = buildMenuJson();
+
+    private static String buildMenuJson() {
+        StringBuilder sb = new StringBuilder("{\"items\":[");
+        List<CyberEatDiriApp.MenuItem> menu = OrderingService.FOOD_MENU;
+        for (int i = 0; i < menu.size(); i++) {
+            CyberEatDiriApp.MenuItem m = menu.get(i);
+            if (i > 0) sb.append(',');
+            sb.append("{\"sku\":").append(quote(m.sku))
+                    .append(",\"name\":").append(quote(m.name))
+                    .append(",\"description\":").append(quote(m.description))
+                    .append(",\"price\":").append(m.price)
+                    .append(",\"icon\":").append(quote(m.icon))
+                    .append('}');
+        }
+        return sb.append("]}").toString();
+    }
+
+    private static String cartJson(Cart cart) {
+        StringBuilder sb = new StringBuilder("{\"items\":[");
+        boolean first = true;
+        for (CyberEatDiriApp.CartItem c : cart) {
+            if (!first) sb.append(',');
+            first = false;
+            sb.append("{\"sku\":").append(quote(c.sku))
+                    .append(",\"name\":").append(quote(c.name))
+                    .append(",\"qty\":").append(c.quantity)
+                    .append(",\"unitPrice\":").append(c.unitPrice)
+                    .append(",\"total\":").append(c.getTotal())
+                    .append('}');
+        }
+        return sb.append("],\"itemCount\":").append(cart.getItemCount())
+                .append(",\"total\":").append(cart.getTotal())
+                .append('}').toString();
+    }
+
+    private static String orderJson(CyberEatDiriApp.Order o) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"id\":").append(o.id)
+                .append(",\"ref\":").append(quote(o.clientRef))
+                .append(",\"time\":").append(o.timestamp)
+                .append(",\"pc\":").append(quote(o.pcNumber))
+                .append(",\"payment\":").append(quote(o.paymentMethod))
+                .append(",\"total\":").append(o.total)
+                .append(",\"items\":[");
+        if (o.items.isEmpty()) {
+            sb.append("],\"summary\":").append(quote(o.itemsSummary)).append('}'); // legacy rows
+            return sb.toString();
+        }
+        for (int i = 0; i < o.items.size(); i++) {
+            OrderLine line = o.items.get(i);
+            if (i > 0) sb.append(',');
+            sb.append("{\"sku\":").append(quote(line.getSku()))
+                    .append(",\"name\":").append(quote(line.getName()))
+                    .append(",\"qty\":").append(line.getQty())
+                    .append(",\"unitPrice\":").append(line.getUnitPrice())
+                    .append('}');
+        }
+        return sb.append("]}").toString();
+    }
+
+    static String quote(String s) {
+        if (s == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    // ---------- REQUEST HELPERS ----------
+
+    private ApiSession session(HttpExchange ex) throws ApiException {
+        String auth = ex.getRequestHeaders().getFirst("Authorization");
+        ApiSession s = (auth != null && auth.startsWith("Bearer ")) ? sessions.get(auth.substring(7).trim()) : null;
+        if (s == null) {
+            throw new ApiException(401, "Log in first (POST /api/login)");
+        }
+        s.lastUsed = System.currentTimeMillis();
+        return s;
+    }
+
+    // Query string plus a form-encoded body
+    private static Map<String, String> params(HttpExchange ex) throws IOException, ApiException {
+        Map<String, String> params = new HashMap<>();
+        parseForm(ex.getRequestURI().getRawQuery(), params);
+
+        try (InputStream in = ex.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                throw new ApiException(413, "Request body too large");
+            }
+            if (body.length > 0) {
+                parseForm(new String(body, StandardCharsets.UTF_8), params);
+            }
+        }
+        return params;
+    }
+
+    private static void parseForm(String raw, Map<String, String> into) throws ApiException {
+        if (raw == null || raw.isEmpty()) {
+            return;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            try {
+                into.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                throw new ApiException(400, "Malformed form encoding"); // e.g. a stray or truncated %
+            }
+        }
+    }
+
+    private static String required(Map<String, String> p, String name) throws ApiException {
+        String v = p.get(name);
+        if (v == null || v.isBlank()) {
+            throw new ApiException(400, "Missing " + name);
+        }
+        return v.trim();
+    }
+
+    private static int intParam(Map<String, String> p, String name, int fallback) throws ApiException {
+        long v = longParam(p, name, fallback);
+        if (v < Integer.MIN_VALUE || v > Integer.MAX_VALUE) {
+            throw new ApiException(400, name + " is out of range");
+        }
+        return (int) v;
+    }
+
+    private static long longParam(Map<String, String> p, String name, long fallback) throws ApiException {
+        String v = p.get(name);
+        if (v == null || v.isBlank()) {
+            return fallback;
+        }
+        try {
+            return Long.parseLong(v.trim());
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, name + " must be a number");
+        }
+    }
+
+    private static void send(HttpExchange ex, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
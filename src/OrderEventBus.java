@@ -0,0 +1,71 @@
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-process publish/subscribe for order status changes.
+ *
+ * Producers: OrderDatabaseHelper (QUEUED, right after new orders commit) and KitchenQueue
+ * (PREPARING, DELIVERED); on a station using the order server, RemoteStore's status feed
+ * republishes the server's events here. Consumers: the kitchen queue itself, the server's
+ * push connections and the stations' history tab.
+ * Listeners run synchronously on the publishing thread (often a database or server
+ * thread), so they must be quick and hop to the EDT themselves for Swing work.
+ */
+public final class OrderEventBus {
+
+    /** One status change: the order as it is now, and when it changed (epoch millis). */
+    public static final class OrderEvent {
+        final CyberEatDiriApp.Order order;
+        final OrderStatus status;
+        final long at;
+        final boolean relayed; // came from another process (the order server), so never sent back out
+
+        OrderEvent(CyberEatDiriApp.Order order, OrderStatus status, long at, boolean relayed) {
+            this.order = order;
+            this.status = status;
+            this.at = at;
+            this.relayed = relayed;
+        }
+    }
+
+    public interface Listener {
+        void orderChanged(OrderEvent event);
+    }
+
+    private static final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private OrderEventBus() {
+    }
+
+    public static void subscribe(Listener l) {
+        listeners.add(l);
+    }
+
+    public static void unsubscribe(Listener l) {
+        listeners.remove(l);
+    }
+
+    /** Sets order.status and tells every listener; one failing listener doesn't stop the rest. */
+    public static void publish(CyberEatDiriApp.Order order, OrderStatus status) {
+        publish(order, status, System.currentTimeMillis(), false);
+    }
+
+    /** A change that happened in another process (RemoteStore's status feed), at its time. */
+    static void publishRelayed(CyberEatDiriApp.Order order, OrderStatus status, long at) {
+        publish(order, status, at, true);
+    }
+
+    private static void publish(CyberEatDiriApp.Order order, OrderStatus status, long at, boolean relayed) {
+        order.status = status;
+        OrderEvent event = new OrderEvent(order, status, at, relayed);
+
+        for (Listener l : listeners) {
+            try {
+                l.orderChanged(event);
+            } catch (RuntimeException e) {
+                System.out.println("Order event listener failed: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+}
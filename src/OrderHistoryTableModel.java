@@ -0,0 +1,353 @@
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lazily loaded Order History table.
+ *
+ * Rows come from the database in pages using keyset pagination
+ * (WHERE id < ? ORDER BY id DESC LIMIT n), fetched off the EDT only when the
+ * JTable asks for a row that isn't cached. At most MAX_CACHED_PAGES pages are
+ * kept in memory (least recently used page is dropped first).
+ *
+ * Orders that never reached the database (guest checkouts, failed saves) can be
+ * shown on top with {@link #addLocalOrder}.
+ *
+ * {@link #showSearchResults} temporarily replaces all of that with a fixed list
+ * (a full-text search); {@link #clearSearch} goes back to the paged rows.
+ *
+ * {@link #updateStatus} applies a pushed kitchen status to the one row showing that
+ * order: pages are id ranges (the cursors), so the page is a binary search over the
+ * cursors and the row a binary search inside it. Nothing is reloaded.
+ */
+public class OrderHistoryTableModel extends AbstractTableModel {
+
+    /** Where the pages come from (normally OrderDatabaseHelper for the logged-in user). */
+    public interface PageSource {
+        int count();
+
+        // Up to limit orders with id < beforeId, newest first
+        List<CyberEatDiriApp.Order> pageBefore(long beforeId, int limit);
+
+        // id of the skip-th order (1-based) below beforeId, or -1 if there aren't that many
+        long idAfter(long beforeId, int skip);
+    }
+
+    static final int PAGE_SIZE = 50;
+    static final int MAX_CACHED_PAGES = 8;
+
+    private static final String[] COLUMNS = {"Date/Time", "Items", "Total (P)", "PC Number", "Payment", "Status"};
+    private static final int STATUS_COLUMN = 5;
+    private static final String LOADING = "Loading...";
+
+    private final PageSource source;
+
+    private final List<CyberEatDiriApp.Order> localOrders = new ArrayList<>();
+    private int dbRowCount;
+
+    // page index -> rows, in access order so the eldest entry is the LRU page
+    private final LinkedHashMap<Integer, List<CyberEatDiriApp.Order>> pages =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, List<CyberEatDiriApp.Order>> eldest) {
+                    return size() > MAX_CACHED_PAGES;
+                }
+            };
+
+    // cursors.get(p) = exclusive upper id bound of page p (one long per page, pages themselves are evicted)
+    private final List<Long> cursors = new ArrayList<>();
+    private final Set<Integer> inFlight = new HashSet<>();
+
+    // bumped on refresh() so results of older fetches are ignored
+    private int generation;
+
+    // non-null while search results are shown instead of the paged history
+    private List<CyberEatDiriApp.Order> searchResults;
+
+    // statuses pushed since the last refresh(), so a page that was in flight can't show an older one
+    private final Map<Long, OrderStatus> pushedStatus = new HashMap<>();
+
+    public OrderHistoryTableModel(PageSource source) {
+        this.source = source;
+        cursors.add(Long.MAX_VALUE);
+    }
+
+    // ---------- PUBLIC API (EDT only) ----------
+
+    /** Drops every cached page and re-reads the row count. */
+    public void refresh() {
+        generation++;
+        int gen = generation;
+
+        pages.clear();
+        pushedStatus.clear(); // fetched from here on, rows are at least this new
+        inFlight.clear();
+        cursors.clear();
+        cursors.add(Long.MAX_VALUE);
+
+        DbExecutor.supply(source::count).whenCompleteAsync((count, ex) -> {
+            if (gen != generation) {
+                return;
+            }
+            if (ex != null) {
+                System.out.println("Error counting orders: " + DbExecutor.cause(ex).getMessage());
+                count = 0;
+            }
+            dbRowCount = count;
+            fireTableDataChanged();
+        }, DbExecutor.EDT);
+    }
+
+    public void addLocalOrder(CyberEatDiriApp.Order order) {
+        localOrders.add(0, order);
+        if (searchResults == null) {
+            fireTableRowsInserted(0, 0);
+        }
+    }
+
+    public void showSearchResults(List<CyberEatDiriApp.Order> results) {
+        searchResults = new ArrayList<>(results);
+        fireTableDataChanged();
+    }
+
+    public void clearSearch() {
+        if (searchResults != null) {
+            searchResults = null;
+            fireTableDataChanged();
+        }
+    }
+
+    /** A kitchen status change for one order: updates its row if it is loaded; otherwise it loads as is. */
+    public void updateStatus(long orderId, OrderStatus status) {
+        pushedStatus.merge(orderId, status, OrderHistoryTableModel::later);
+
+        if (searchResults != null) {
+            // search results are separate copies of the rows (up to SEARCH_LIMIT)
+            for (CyberEatDiriApp.Order o : searchResults) {
+                if (o.id == orderId) {
+                    o.status = later(o.status, status);
+                }
+            }
+        }
+
+        int page = pageOf(orderId);
+        List<CyberEatDiriApp.Order> rows = page < 0 ? null : pages.get(page);
+        if (rows == null) {
+            if (searchResults != null) {
+                fireTableDataChanged(); // just the search list; cheap
+            }
+            return;
+        }
+
+        // rows are newest (highest id) first
+        int lo = 0;
+        int hi = rows.size() - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long id = rows.get(mid).id;
+            if (id == orderId) {
+                CyberEatDiriApp.Order o = rows.get(mid);
+                o.status = later(o.status, status);
+                if (searchResults == null) {
+                    int row = localOrders.size() + page * PAGE_SIZE + mid;
+                    fireTableCellUpdated(row, STATUS_COLUMN);
+                } else {
+                    fireTableDataChanged();
+                }
+                return;
+            }
+            if (id > orderId) {
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+    }
+
+    // Page p holds ids in [cursors[p + 1], cursors[p]); -1 if the id is below every known page
+    private int pageOf(long orderId) {
+        int lo = 0;
+        int hi = cursors.size() - 2; // the last cursor only starts a page not loaded yet
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (orderId >= cursors.get(mid)) {
+                hi = mid - 1;
+            } else if (orderId < cursors.get(mid + 1)) {
+                lo = mid + 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    // Statuses only move forward, so of two reports the further one wins
+    private static OrderStatus later(OrderStatus a, OrderStatus b) {
+        return a.ordinal() >= b.ordinal() ? a : b;
+    }
+
+    public boolean isShowingSearch() {
+        return searchResults != null;
+    }
+
+    public int getCachedPageCount() {
+        return pages.size();
+    }
+
+    // ---------- TABLE MODEL ----------
+
+    @Override
+    public int getRowCount() {
+        if (searchResults != null) {
+            return searchResults.size();
+        }
+        return localOrders.size() + dbRowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        CyberEatDiriApp.Order order = getOrderAt(row);
+        if (order == null) {
+            return column == 1 ? LOADING : "";
+        }
+
+        switch (column) {
+            case 0: return order.formattedTime(); // formatted per paint, never stored
+            case 1: return order.itemsText();
+            case 2: return order.total;
+            case 3: return order.pcNumber;
+            case 4: return order.paymentMethod;
+            case STATUS_COLUMN: return order.id < 0 ? "-" : order.status.label; // unsaved (guest) orders never reach the kitchen
+            default: return "";
+        }
+    }
+
+    /** Returns the order for a row, or null while its page is still loading (a fetch is then started). */
+    public CyberEatDiriApp.Order getOrderAt(int row) {
+        if (searchResults != null) {
+            return row < searchResults.size() ? searchResults.get(row) : null;
+        }
+        if (row < localOrders.size()) {
+            return localOrders.get(row);
+        }
+
+        int dbRow = row - localOrders.size();
+        int page = dbRow / PAGE_SIZE;
+
+        List<CyberEatDiriApp.Order> rows = pages.get(page);
+        if (rows == null) {
+            requestPage(page);
+            return null;
+        }
+
+        int offset = dbRow % PAGE_SIZE;
+        return offset < rows.size() ? rows.get(offset) : null;
+    }
+
+    // ---------- PAGE LOADING ----------
+
+    private void requestPage(int page) {
+        if (!inFlight.add(page)) {
+            return;
+        }
+
+        int gen = generation;
+
+        // Start from the nearest page whose cursor we already know
+        int knownPage = Math.min(page, cursors.size() - 1);
+        long knownCursor = cursors.get(knownPage);
+
+        DbExecutor.supply(() -> fetch(knownPage, knownCursor, page))
+                .whenCompleteAsync((result, ex) -> {
+                    if (gen != generation) {
+                        return;
+                    }
+                    inFlight.remove(page);
+
+                    if (ex != null) {
+                        System.out.println("Error loading order page " + page + ": "
+                                + DbExecutor.cause(ex).getMessage());
+                        return;
+                    }
+                    apply(page, knownPage, result);
+                }, DbExecutor.EDT);
+    }
+
+    // Runs off the EDT: walks forward to the page's cursor (index seeks only), then loads the page
+    private FetchResult fetch(int fromPage, long fromCursor, int page) {
+        FetchResult result = new FetchResult();
+        long cursor = fromCursor;
+
+        for (int p = fromPage; p < page; p++) {
+            cursor = source.idAfter(cursor, PAGE_SIZE);
+            if (cursor < 0) {
+                return result; // fewer rows than expected (orders deleted meanwhile)
+            }
+            result.cursors.add(cursor);
+        }
+
+        result.rows = source.pageBefore(cursor, PAGE_SIZE);
+        return result;
+    }
+
+    private void apply(int page, int fromPage, FetchResult result) {
+        // record newly discovered cursors for pages fromPage+1 .. page
+        for (int i = 0; i < result.cursors.size(); i++) {
+            int p = fromPage + 1 + i;
+            if (p == cursors.size()) {
+                cursors.add(result.cursors.get(i));
+            }
+        }
+
+        if (result.rows == null) {
+            return;
+        }
+
+        if (!pushedStatus.isEmpty()) {
+            for (CyberEatDiriApp.Order o : result.rows) {
+                OrderStatus pushed = pushedStatus.get(o.id);
+                if (pushed != null) {
+                    o.status = later(o.status, pushed);
+                }
+            }
+        }
+        pages.put(page, result.rows);
+        if (!result.rows.isEmpty() && page + 1 == cursors.size()) {
+            cursors.add(result.rows.get(result.rows.size() - 1).id);
+        }
+
+        if (searchResults != null) {
+            return; // cached for when the search is cleared; nothing on screen changed
+        }
+        int first = localOrders.size() + page * PAGE_SIZE;
+        int last = Math.min(getRowCount() - 1, first + PAGE_SIZE - 1);
+        if (first <= last) {
+            fireTableRowsUpdated(first, last);
+        }
+    }
+
+    private static class FetchResult {
+        final List<Long> cursors = new ArrayList<>();
+        List<CyberEatDiriApp.Order> rows;
+    }
+}
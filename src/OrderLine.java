@@ -0,0 +1,106 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One structured line of an order (a row of the order_items table).
+ */
+public class OrderLine {
+
+    // Legacy items_summary lines look like "Gamer's Pizza x2 = P360"
+    private static final Pattern LEGACY_LINE = Pattern.compile("^(.+) x(\\d+) = P(\\d+)$");
+
+    private final String sku;
+    private final String name;
+    private final int qty;
+    private final int unitPrice;
+
+    public OrderLine(String sku, String name, int qty, int unitPrice) {
+        this.sku = sku;
+        this.name = name;
+        this.qty = qty;
+        this.unitPrice = unitPrice;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getQty() {
+        return qty;
+    }
+
+    public int getUnitPrice() {
+        return unitPrice;
+    }
+
+    public int getLineTotal() {
+        return qty * unitPrice;
+    }
+
+    /** Stable SKU derived from a menu name, e.g. "Gamer's Pizza" -> "gamers-pizza". */
+    public static String skuFor(String name) {
+        String slug = name.toLowerCase(Locale.ROOT)
+                .replace("'", "")
+                .replaceAll("[^a-z0-9]+", "-");
+        return slug.replaceAll("^-+|-+$", "");
+    }
+
+    /** Display text, one "Name xQty = PTotal" line per item (same shape as the legacy summary). */
+    public static String format(List<OrderLine> lines) {
+        StringBuilder sb = new StringBuilder();
+        for (OrderLine line : lines) {
+            if (sb.length() > 0) {
+                sb.append("\n");
+            }
+            sb.append(line.name)
+                    .append(" x").append(line.qty)
+                    .append(" = P").append(line.getLineTotal());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Parses a legacy items_summary blob. All or nothing: returns an empty list (the caller
+     * keeps showing the raw summary) unless every line parses, every line total divides
+     * evenly by its quantity, and the lines add up to the order total.
+     */
+    public static List<OrderLine> parseLegacy(String summary, int total) {
+        List<OrderLine> lines = new ArrayList<>();
+        if (summary == null) {
+            return lines;
+        }
+
+        int sum = 0;
+        for (String raw : summary.split("\\R")) {
+            if (raw.isBlank()) {
+                continue;
+            }
+            Matcher m = LEGACY_LINE.matcher(raw.trim());
+            if (!m.matches()) {
+                return new ArrayList<>();
+            }
+            String name = m.group(1).trim();
+            int qty;
+            int lineTotal;
+            try {
+                qty = Integer.parseInt(m.group(2));
+                lineTotal = Integer.parseInt(m.group(3));
+            } catch (NumberFormatException e) {
+                return new ArrayList<>(); // too many digits for an int
+            }
+            if (qty <= 0 || lineTotal % qty != 0) {
+                return new ArrayList<>();
+            }
+            lines.add(new OrderLine(skuFor(name), name, qty, lineTotal / qty));
+            sum += lineTotal;
+        }
+        return sum == total ? lines : new ArrayList<>();
+    }
+}
@@ -0,0 +1,655 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Headless order server: the only process that opens cybereatdiri_users.db.
+ *
+ * Stations started with -Dcybereatdiri.server=host:port send logins, checkouts,
+ * history and credit calls here (RemoteStore) instead of sharing the SQLite file
+ * over the LAN. Every connection gets its own virtual thread, so 40+ stations cost
+ * no more than 40+ parked threads. Reads run in parallel on the Database pool (WAL);
+ * writes take one in-process lock first, so concurrent checkouts queue up here
+ * instead of failing with SQLITE_BUSY when two transactions want the write lock.
+ * A station's OP_SUBSCRIBE connection gets its user's OrderEventBus events pushed
+ * to it, so kitchen status changes reach the history tab without polling.
+ *
+ * Nothing a station sends is trusted: a login returns a session token (LoginSessions),
+ * and every op on a user's data must carry that user's token. Kitchen and report ops
+ * need the staff key (-Dcybereatdiri.server.staffKey; unset = refused, the kitchen
+ * display runs in this process). Food orders must match the menu, and credit sales
+ * name a pack whose time and price come from this server's CREDIT_PACKS.
+ *
+ * Run: java OrderServer  (-Dcybereatdiri.server.port=7070 -Dcybereatdiri.server.bind=0.0.0.0)
+ * For local testing, start(0) binds an ephemeral port and getPort() reports it.
+ */
+public final class OrderServer implements AutoCloseable {
+
+    private final UserStore users = new CyberEatDiriAuth.DatabaseHelper();
+    private final OrderStore orders = new CyberEatDiriApp.OrderDatabaseHelper();
+    private final GameSessionStore sessions = new CyberEatDiriApp.GameSessionDatabaseHelper();
+    private final CreditStore credits = new CyberEatDiriApp.CreditLedgerDatabaseHelper();
+    private final LoginSessions logins = new LoginSessions();
+
+    private static final String STAFF_KEY = System.getProperty("cybereatdiri.server.staffKey");
+
+    private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+    private final AtomicLong requestCount = new AtomicLong();
+
+    // One writer at a time (fair, and a j.u.c lock so waiting virtual threads unmount)
+    private final ReentrantLock writeLock = new ReentrantLock(true);
+
+    // Events waiting to be pushed to one station; a station this far behind is dropped (it resyncs on reconnect)
+    private static final int PUSH_BACKLOG = 256;
+
+    private ServerSocket serverSocket;
+    private Thread acceptThread;
+    private volatile boolean closed;
+
+    public static void main(String[] args) throws Exception {
+        int port = Integer.getInteger("cybereatdiri.server.port", StoreProtocol.DEFAULT_PORT);
+        String bind = System.getProperty("cybereatdiri.server.bind");
+
+        String err = SchemaMigrator.migrate();
+        if (err != null) {
+            System.out.println("Order server not started: " + err);
+            System.exit(1);
+        }
+
+        OrderServer server = new OrderServer();
+        server.start(bind == null ? null : InetAddress.getByName(bind), port);
+        System.out.println("Order server listening on port " + server.getPort() + " (" + Database.DB_URL + ")");
+        server.acceptThread.join();
+    }
+
+    // ---------- LIFECYCLE ----------
+
+    /** Binds and starts accepting; port 0 picks a free one. bindAddress null = all interfaces. */
+    public synchronized void start(InetAddress bindAddress, int port) throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(bindAddress, port));
+
+        acceptThread = Thread.ofPlatform().name("order-server-accept").start(this::acceptLoop);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException ignored) {
+        }
+        for (Socket s : clients) {
+            try {
+                s.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                clients.add(socket);
+                Thread.ofVirtual().name("order-client-" + socket.getRemoteSocketAddress()).start(() -> serve(socket));
+            } catch (IOException e) {
+                if (!closed) {
+                    System.out.println("Order server accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // ---------- CONNECTION ----------
+
+    private void serve(Socket socket) {
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+
+            StoreProtocol.writeHello(out);
+            StoreProtocol.readHello(in);
+
+            while (true) {
+                byte op;
+                try {
+                    op = in.readByte();
+                } catch (EOFException e) {
+                    return; // station closed the connection
+                }
+                requestCount.incrementAndGet();
+                if (op == StoreProtocol.OP_SUBSCRIBE) {
+                    String token = StoreProtocol.readString(in);
+                    int userId = in.readInt();
+                    if (isUser(token, userId, out)) {
+                        pushStatus(userId, out);
+                    }
+                    out.flush();
+                    return; // the subscription used up the connection
+                }
+                try {
+                    handle(op, in, out);
+                } catch (RuntimeException e) {
+                    // helpers answer before anything is written, so the reply is still clean
+                    e.printStackTrace();
+                    out.writeByte(StoreProtocol.STATUS_ERROR);
+                    StoreProtocol.writeString(out, String.valueOf(e));
+                }
+                out.flush();
+            }
+        } catch (SocketException | EOFException e) {
+            // dropped connection or shutdown; nothing to answer
+        } catch (IOException e) {
+            if (!closed) {
+                System.out.println("Order server connection " + socket.getRemoteSocketAddress() + " failed: " + e.getMessage());
+            }
+        } finally {
+            clients.remove(socket);
+        }
+    }
+
+    /**
+     * Streams one user's status changes until the station hangs up or falls too far behind.
+     * The bus listener only queues (it runs on the kitchen's thread); this connection's own
+     * virtual thread does the writing, with a heartbeat when idle so dead stations are noticed.
+     */
+    private void pushStatus(int userId, DataOutputStream out) throws IOException {
+        BlockingQueue<OrderEventBus.OrderEvent> backlog = new ArrayBlockingQueue<>(PUSH_BACKLOG);
+        AtomicBoolean overflowed = new AtomicBoolean();
+        OrderEventBus.Listener listener = event -> {
+            if (!event.relayed && event.order.userId == userId && !backlog.offer(event)) {
+                overflowed.set(true);
+            }
+        };
+
+        OrderEventBus.subscribe(listener);
+        try {
+            out.writeByte(StoreProtocol.STATUS_OK);
+            out.flush();
+
+            while (!closed) {
+                OrderEventBus.OrderEvent event = backlog.poll(StoreProtocol.HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+                if (overflowed.get()) {
+                    throw new IOException("status feed for user " + userId + " fell behind");
+                }
+                if (event == null) {
+                    out.writeByte(StoreProtocol.PUSH_HEARTBEAT);
+                } else {
+                    out.writeByte(StoreProtocol.PUSH_STATUS);
+                    StoreProtocol.writeOrder(out, event.order);
+                    out.writeByte(event.status.ordinal());
+                    out.writeLong(event.at);
+                }
+                out.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            OrderEventBus.unsubscribe(listener);
+        }
+    }
+
+    // Runs a database write under writeLock; arguments are read off the socket before locking
+    private <T> T write(Supplier<T> task) {
+        writeLock.lock();
+        try {
+            return task.get();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void write(Runnable task) {
+        write(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    // ---------- ACCESS ----------
+
+    // These answer a refusal themselves; call them only after every argument has been read
+
+    private boolean isUser(String token, int userId, DataOutputStream out) throws IOException {
+        if (userId >= 0 && logins.userFor(token) == userId) {
+            return true;
+        }
+        refuse(out, "Not logged in as user " + userId);
+        return false;
+    }
+
+    private boolean isStaff(String key, DataOutputStream out) throws IOException {
+        if (STAFF_KEY != null && !STAFF_KEY.isBlank() && key != null
+                && MessageDigest.isEqual(STAFF_KEY.getBytes(StandardCharsets.UTF_8), key.getBytes(StandardCharsets.UTF_8))) {
+            return true;
+        }
+        refuse(out, STAFF_KEY == null || STAFF_KEY.isBlank()
+                ? "Staff calls are off on this server (no cybereatdiri.server.staffKey)" : "Wrong staff key");
+        return false;
+    }
+
+    private static void refuse(DataOutputStream out, String why) throws IOException {
+        out.writeByte(StoreProtocol.STATUS_ERROR);
+        StoreProtocol.writeString(out, why);
+    }
+
+    /**
+     * Order server logins: token -> user. Kept in login_sessions so a server restart doesn't log
+     * every station out, and cached here so checking a token is usually a map lookup. A session
+     * lasts SESSION_MILLIS from login (a shift); expired ones are pruned on the next login.
+     */
+    static final class LoginSessions {
+        static final String SQL_INSERT = "INSERT INTO login_sessions(token, user_id, created_at) VALUES(?, ?, ?)";
+        static final String SQL_FIND = "SELECT user_id, created_at FROM login_sessions WHERE token = ?";
+        static final String SQL_PRUNE = "DELETE FROM login_sessions WHERE created_at < ?";
+
+        // Every statement above; QueryPlanCheck verifies none of them scans a table
+        static final String[] QUERIES = {
+                SQL_INSERT,
+                SQL_FIND,
+                SQL_PRUNE
+        };
+
+        private static final long SESSION_MILLIS =
+                TimeUnit.HOURS.toMillis(Long.getLong("cybereatdiri.server.sessionHours", 24L));
+
+        private final SecureRandom random = new SecureRandom();
+        private final Map<String, long[]> cache = new ConcurrentHashMap<>(); // token -> {userId, createdAt}
+
+        /** Starts a session for userId and returns its token; null on a database error. Run under the write lock. */
+        String create(int userId) {
+            byte[] bytes = new byte[24];
+            random.nextBytes(bytes);
+            String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+            long now = System.currentTimeMillis();
+            long cutoff = now - SESSION_MILLIS;
+
+            try (Connection conn = Database.getConnection();
+                 PreparedStatement prune = conn.prepareStatement(SQL_PRUNE);
+                 PreparedStatement insert = conn.prepareStatement(SQL_INSERT)) {
+
+                // logins are rare next to other calls: a good moment to forget old sessions
+                prune.setLong(1, cutoff);
+                prune.executeUpdate();
+                cache.values().removeIf(s -> s[1] < cutoff);
+
+                insert.setString(1, token);
+                insert.setInt(2, userId);
+                insert.setLong(3, now);
+                insert.executeUpdate();
+                cache.put(token, new long[]{userId, now});
+                return token;
+
+            } catch (SQLException e) {
+                System.out.println("Error starting login session: " + e.getMessage());
+                e.printStackTrace();
+                return null;
+            }
+        }
+
+        /** The user a token belongs to, or -1 if it is unknown, expired, or can't be checked. */
+        int userFor(String token) {
+            if (token == null) {
+                return -1;
+            }
+            long[] session = cache.get(token);
+            if (session == null) {
+                session = load(token); // issued before a restart
+                if (session == null) {
+                    return -1;
+                }
+                cache.put(token, session);
+            }
+            if (session[1] < System.currentTimeMillis() - SESSION_MILLIS) {
+                cache.remove(token);
+                return -1;
+            }
+            return (int) session[0];
+        }
+
+        private static long[] load(String token) {
+            try (Connection conn = Database.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(SQL_FIND)) {
+                ps.setString(1, token);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? new long[]{rs.getInt("user_id"), rs.getLong("created_at")} : null;
+                }
+            } catch (SQLException e) {
+                System.out.println("Error checking login session: " + e.getMessage());
+                e.printStackTrace();
+                return null;
+            }
+        }
+    }
+
+    // ---------- REQUESTS ----------
+
+    // Reads one request's arguments and writes its response
+    private void handle(byte op, DataInputStream in, DataOutputStream out) throws IOException {
+        switch (op) {
+            case StoreProtocol.OP_INIT: {
+                out.writeByte(StoreProtocol.STATUS_OK);
+                StoreProtocol.writeString(out, SchemaMigrator.migrate());
+                return;
+            }
+            case StoreProtocol.OP_REGISTER: {
+                String email = StoreProtocol.readString(in);
+                String phone = StoreProtocol.readString(in);
+                String password = StoreProtocol.readString(in);
+                boolean ok = write(() -> users.registerUser(email, phone, password));
+                out.writeByte(StoreProtocol.STATUS_OK);
+                out.writeBoolean(ok);
+                StoreProtocol.writeString(out, users.getLastError());
+                return;
+            }
+            case StoreProtocol.OP_AUTHENTICATE: {
+                String email = StoreProtocol.readString(in);
+                String password = StoreProtocol.readString(in);
+                UserPrincipal user = users.authenticate(email, password);
+                String err = users.getLastError();
+                String token = null;
+                if (user != null) {
+                    token = write(() -> logins.create(user.getId()));
+                    if (token == null) {
+                        err = "Could not start a login session. Please try again.";
+                    }
+                }
+                out.writeByte(StoreProtocol.STATUS_OK);
+                out.writeBoolean(token != null);
+                if (token != null) {
+                    out.writeInt(user.getId());
+                    StoreProtocol.writeString(out, user.getEmail());
+                    StoreProtocol.writeString(out, user.getPhone());
+                    StoreProtocol.writeString(out, token);
+                }
+                StoreProtocol.writeString(out, err);
+                return;
+            }
+            case StoreProtocol.OP_INSERT_ORDERS: {
+                Set<Integer> loggedIn = new HashSet<>();
+                int tokens = StoreProtocol.readLength(in);
+                for (int i = 0; i < tokens; i++) {
+                    loggedIn.add(logins.userFor(StoreProtocol.readString(in)));
+                }
+                List<CyberEatDiriApp.Order> batch = StoreProtocol.readOrders(in);
+                for (CyberEatDiriApp.Order o : batch) {
+                    if (o.userId < 0 || !loggedIn.contains(o.userId)) {
+                        refuse(out, "Order " + o.clientRef + ": not logged in as user " + o.userId);
+                        return;
+                    }
+                    String err = OrderingService.priceError(o);
+                    if (err != null) {
+                        refuse(out, "Order " + o.clientRef + ": " + err);
+                        return;
+                    }
+                    o.status = OrderStatus.QUEUED; // the kitchen moves it on from here
+                }
+                boolean ok = write(() -> orders.insertOrders(batch));
+                out.writeByte(StoreProtocol.STATUS_OK);
+                out.writeBoolean(ok);
+                for (CyberEatDiriApp.Order o : batch) {
+                    out.writeLong(o.id);
+                }
+                return;
+            }
+            case StoreProtocol.OP_COUNT_ORDERS: {
+                String token = StoreProtocol.readString(in);
+                int userId = in.readInt();
+                if (!isUser(token, userId, out)) {
+                    return;
+                }
+                int count = orders.countOrdersForUser(userId);
+                out.writeByte(StoreProtocol.STATUS_OK);
+                out.writeInt(count);
+                return;
+            }
+            case StoreProtocol.OP_ORDERS_PAGE: {
+                String token = StoreProtocol.readString(in);
+                int userId = in.readInt();
+                long beforeId = in.readLong();
+                int limit = in.readInt();
+                if (!isUser(token, userId, out)) {
+                    return;
+                }
+                List<CyberEatDiriApp.Order> page = orders.getOrdersPage(userId, beforeId, limit);
+                out.writeByte(StoreProtocol.STATUS_OK);
+                StoreProtocol.writeOrders(out, page);
+                return;
+            }
+            case StoreProtocol.OP_ORDER_ID_AFTER: {
+                String token = StoreProtocol.readString(in);
+                int userId = in.readInt();
+                long beforeId = in.readLong();
+                int skip = in.readInt();
+                if (!isUser(token, userId, out)) {
+                    return;
+                }
+                long id = orders.findOrderIdAfter(userId, beforeId, skip);
+                out.writeByte(StoreProtocol.STATUS_OK);
+                out.writeLong(id);
+                return;
+            }
+            case StoreProtocol.OP_ORDERS_BETWEEN: {
+                String token = StoreProtocol.readString(in);
+                int userId = in.readInt();
+                long fromMillis = in.readLong();
+                long toMillis = in.readLong();
+                int limit = in.readInt();
+                if (!isUser(token, userId, out)) {
+                    return;
+                }
+                List<CyberEatDiriApp.Order> found = orders.getOrdersBetween(userId, fromMillis, toMillis, limit);
+                out.writeByte(StoreProtocol.STATUS_OK);
+                StoreProtocol.writeOrders(out, found);
+                return;
+            }
+            case StoreProtocol.OP_ALL_ORDERS_BETWEEN: {
+                String key = StoreProtocol.readString(in);
+                long fromMillis = in.readLong();
+                long toMillis = in.readLong();
+                int limit = in.readInt();
+                if (!isStaff(key, out)) {
+                    return;
+                }
+                List<CyberEatDiriApp.Order> found = orders.getAllOrdersBetween(fromMillis, toMillis, limit);
+                out.writeByte(StoreProtocol.STATUS_OK);
+                StoreProtocol.writeOrders(out, found);
+                return;
+            }
+            case StoreProtocol.OP_SEARCH_ORDERS: {
+                String token = StoreProtocol.readString(in);
+                int userId = in.readInt();
+                String text = StoreProtocol.readString(in);
+                int limit = in.readInt();
+                if (!isUser(token, userId, out)) {
+                    return;
+                }
+                List<CyberEatDiriApp.Order> found = orders.searchOrders(userId, text, limit);
+                out.writeByte(StoreProtocol.STATUS_OK);
+                StoreProtocol.writeOrders(out, found);
+                return;
+            }
+            case StoreProtocol.OP_SALES_FOR_SKU: {
+                String key = StoreProtocol.readString(in);
+                String sku = StoreProtocol.readString(in);
+                if (!isStaff(key, out)) {
+                    return;
+                }
+                int[] sales = orders.getSalesForSku(sku);
+                out.writeByte(StoreProtocol.STATUS_OK);
+                out.writeInt(sales[0]);
+                out.writeInt(sales[1]);
+                return;
+            }
+            case StoreProtocol.OP_UPDATE_STATUS: {
+                String key = StoreProtocol.readString(in);
+                long orderId = in.readLong();
+                OrderStatus status = StoreProtocol.readStatus(in);
+                if (!isStaff(key, out)) {
+                    return;
+                }
+                boolean ok = write(() -> orders.updateStatus(orderId, status));
+                out.writeByte(StoreProtocol.STATUS_OK);
+                out.writeBoolean(ok);
+                return;
+            }
+            case StoreProtocol.OP_OPEN_ORDERS: {
+                String key = StoreProtocol.readString(in);
+                int limit = in.readInt();
+                if (!isStaff(key, out)) {
+                    return;
+                }
+                List<CyberEatDiriApp.Order> open = orders.getOpenOrders(limit);
+                out.writeByte(StoreProtocol.STATUS_OK);
+                StoreProtocol.writeOrders(out, open);
+                return;
+            }
+            case StoreProtocol.OP_SESSION_LOAD: {
+                String token = StoreProtocol.readString(in);
+                int userId = in.readInt();
+                if (!isUser(token, userId, out)) {
+                    return;
+                }
+                long[] session = sessions.load(userId);
+                out.writeByte(StoreProtocol.STATUS_OK);
+                StoreProtocol.writeLongPair(out, session);
+                return;
+            }
+            case StoreProtocol.OP_SESSION_SAVE: {
+                String token = StoreProtocol.readString(in);
+                int userId = in.readInt();
+                long purchased = in.readLong();
+                long endsAt = in.readLong();
+                if (!isUser(token, userId, out)) {
+                    return;
+                }
+                boolean ok = write(() -> sessions.save(userId, purchased, endsAt));
+                out.writeByte(StoreProtocol.STATUS_OK);
+                out.writeBoolean(ok);
+                return;
+            }
+            case StoreProtocol.OP_SESSION_DELETE: {
+                String token = StoreProtocol.readString(in);
+                int userId = in.readInt();
+                if (!isUser(token, userId, out)) {
+                    return;
+                }
+                write(() -> sessions.delete(userId));
+                out.writeByte(StoreProtocol.STATUS_OK);
+                return;
+            }
+            case StoreProtocol.OP_CREDIT_PURCHASE: {
+                String token = StoreProtocol.readString(in);
+                int userId = in.readInt();
+                String clientRef = StoreProtocol.readString(in);
+                long timestamp = in.readLong();
+                String sku = StoreProtocol.readString(in);
+                String pc = StoreProtocol.readString(in);
+                String payment = StoreProtocol.readString(in);
+                if (!isUser(token, userId, out)) {
+                    return;
+                }
+                CyberEatDiriApp.CreditItem pack = OrderingService.findCreditPack(sku);
+                if (pack == null) {
+                    refuse(out, "Unknown credit pack " + sku);
+                    return;
+                }
+                // time and price from this server's packs, whatever the station shows
+                CyberEatDiriApp.Order order = OrderingService.creditOrder(pack, pc, payment);
+                order.userId = userId;
+                order.clientRef = clientRef;
+                order.timestamp = timestamp;
+                boolean ok = write(() -> credits.purchase(order));
+                out.writeByte(StoreProtocol.STATUS_OK);
+                out.writeBoolean(ok);
+                out.writeLong(order.id);
+                return;
+            }
+            case StoreProtocol.OP_CREDIT_USAGE: {
+                String token = StoreProtocol.readString(in);
+                int userId = in.readInt();
+                long remaining = in.readLong();
+                if (!isUser(token, userId, out)) {
+                    return;
+                }
+                write(() -> credits.recordUsage(userId, remaining));
+                out.writeByte(StoreProtocol.STATUS_OK);
+                return;
+            }
+            case StoreProtocol.OP_CREDIT_REFUND: {
+                String token = StoreProtocol.readString(in);
+                int userId = in.readInt();
+                long orderId = in.readLong();
+                if (!isUser(token, userId, out)) {
+                    return;
+                }
+                boolean ok = write(() -> credits.refund(userId, orderId));
+                out.writeByte(StoreProtocol.STATUS_OK);
+                out.writeBoolean(ok);
+                return;
+            }
+            case StoreProtocol.OP_CREDIT_BALANCE: {
+                String token = StoreProtocol.readString(in);
+                int userId = in.readInt();
+                if (!isUser(token, userId, out)) {
+                    return;
+                }
+                long[] balance = credits.getBalance(userId);
+                out.writeByte(StoreProtocol.STATUS_OK);
+                StoreProtocol.writeLongPair(out, balance);
+                return;
+            }
+            default:
+                // the rest of the stream can't be parsed; answer, then drop the connection
+                out.writeByte(StoreProtocol.STATUS_ERROR);
+                StoreProtocol.writeString(out, "Unknown request " + op);
+                out.flush();
+                throw new IOException("Unknown request " + op);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+/**
+ * Where an order is in the kitchen, stored in orders.status as its dbValue.
+ * Orders move forward only: QUEUED -> PREPARING -> DELIVERED (to the order's pc_number).
+ */
+public enum OrderStatus {
+    QUEUED("queued", "Queued"),
+    PREPARING("preparing", "Preparing"),
+    DELIVERED("delivered", "Delivered");
+
+    final String dbValue;
+    final String label;
+
+    OrderStatus(String dbValue, String label) {
+        this.dbValue = dbValue;
+        this.label = label;
+    }
+
+    /** The status for an orders.status value; unknown or missing values count as delivered (nothing to cook). */
+    static OrderStatus fromDb(String value) {
+        for (OrderStatus s : values()) {
+            if (s.dbValue.equals(value)) {
+                return s;
+            }
+        }
+        return DELIVERED;
+    }
+
+    boolean isOpen() {
+        return this != DELIVERED;
+    }
+}
@@ -0,0 +1,45 @@
+import java.util.List;
+
+/**
+ * Orders and their items: checkout writes, history paging, search and reports.
+ *
+ * Implemented by CyberEatDiriApp.OrderDatabaseHelper (local SQLite) and by
+ * RemoteStore (the order server); {@link Stores#orders()} picks one.
+ * Failures are logged and reported as false / 0 / -1 / empty results.
+ */
+public interface OrderStore {
+
+    void init();
+
+    // All orders in one transaction; sets each new order's id
+    boolean insertOrders(List<CyberEatDiriApp.Order> orders);
+
+    int countOrdersForUser(int userId);
+
+    List<CyberEatDiriApp.Order> getOrdersPage(int userId, long beforeId, int limit);
+
+    long findOrderIdAfter(int userId, long beforeId, int skip);
+
+    List<CyberEatDiriApp.Order> getOrdersBetween(int userId, long fromMillis, long toMillis, int limit);
+
+    List<CyberEatDiriApp.Order> getAllOrdersBetween(long fromMillis, long toMillis, int limit);
+
+    List<CyberEatDiriApp.Order> searchOrders(int userId, String text, int limit);
+
+    // {qty, revenue}
+    int[] getSalesForSku(String sku);
+
+    // Kitchen: move an order along (OrderStatus), and reload what is still open after a restart
+    boolean updateStatus(long orderId, OrderStatus status);
+
+    List<CyberEatDiriApp.Order> getOpenOrders(int limit);
+
+    // Live status: brings this user's order changes onto this process's OrderEventBus until closed
+    StatusFeed watchStatus(int userId);
+
+    /** An open status subscription. */
+    interface StatusFeed extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,377 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind pipeline for checkouts.
+ *
+ * {@link #submit} appends the order to an fsync'd journal file and queues it in memory;
+ * it returns as soon as the order is durable, without touching SQLite. A single
+ * background thread drains the queue and inserts orders in batched transactions
+ * (up to BATCH_SIZE orders, waiting at most LINGER_MILLIS for a batch to fill),
+ * so a burst of checkouts costs one lock + commit instead of one each.
+ *
+ * Journal lines: "A <fields>" when an order is accepted, "C <ref>" once it is committed,
+ * "D <ref>" once it was given up on. On startup every A without a matching C or D is
+ * replayed. Orders carry a unique client_ref, so an order that was committed right before
+ * a crash (C not yet written) hits ON CONFLICT(client_ref) DO NOTHING instead of being
+ * saved twice, and gets its existing id back.
+ *
+ * When a batch fails its orders are retried one at a time, so one bad order can't hold
+ * up the rest. An order that keeps failing while others go through (MAX_STRIKES rounds)
+ * is moved to the dead-letter file for staff to look at; if nothing goes through, the
+ * database is likely down and everything just waits for RETRY_MILLIS.
+ */
+public final class OrderWriter {
+
+    private static final Path JOURNAL = Paths.get(System.getProperty("cybereatdiri.orders.journal", "cybereatdiri_orders.journal"));
+    private static final int BATCH_SIZE = Integer.getInteger("cybereatdiri.orders.batchSize", 32);
+    private static final long LINGER_MILLIS = Long.getLong("cybereatdiri.orders.lingerMillis", 50L);
+    private static final long RETRY_MILLIS = 2000L;
+    private static final Path DEAD_LETTER = Paths.get(System.getProperty("cybereatdiri.orders.deadLetter", "cybereatdiri_orders.deadletter"));
+    private static final int MAX_STRIKES = 3;
+
+    private static OrderWriter instance;
+    private static final List<Consumer<List<CyberEatDiriApp.Order>>> listeners = new CopyOnWriteArrayList<>();
+
+    private final OrderStore orderDb = Stores.orders();
+    private final LinkedBlockingQueue<CyberEatDiriApp.Order> queue = new LinkedBlockingQueue<>();
+
+    // Guards the journal channel and the count of journaled-but-uncommitted orders
+    private final Object journalLock = new Object();
+    private final FileChannel journal;
+    private int uncommitted;
+
+    private OrderWriter() throws IOException {
+        List<CyberEatDiriApp.Order> replay = readUncommitted();
+
+        journal = FileChannel.open(JOURNAL,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+
+        if (!replay.isEmpty()) {
+            System.out.println("Replaying " + replay.size() + " uncommitted order(s) from " + JOURNAL);
+            uncommitted = replay.size();
+            queue.addAll(replay);
+        } else {
+            // nothing pending: start from an empty journal
+            journal.truncate(0);
+        }
+
+        Thread t = new Thread(this::runWriter, "order-writer");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /** The process-wide writer; the first call opens the journal and replays it. */
+    public static synchronized OrderWriter getInstance() {
+        if (instance == null) {
+            try {
+                instance = new OrderWriter();
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not open order journal " + JOURNAL + ": " + e.getMessage(), e);
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Opens the journal and replays leftovers at process start.
+     * Returns false (and logs why) if the journal can't be opened; checkouts will then report a save error.
+     */
+    public static boolean start() {
+        try {
+            getInstance();
+            return true;
+        } catch (IllegalStateException e) {
+            System.out.println(e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /** Called on the writer thread after each committed batch. */
+    public static void addListener(Consumer<List<CyberEatDiriApp.Order>> listener) {
+        listeners.add(listener);
+    }
+
+    public static void removeListener(Consumer<List<CyberEatDiriApp.Order>> listener) {
+        listeners.remove(listener);
+    }
+
+    public int getPendingCount() {
+        synchronized (journalLock) {
+            return uncommitted;
+        }
+    }
+
+    /**
+     * Makes the order durable in the journal and queues it for the database.
+     * Blocks only for the journal fsync, so call it off the EDT.
+     */
+    public void submit(CyberEatDiriApp.Order order) throws IOException {
+        if (order.clientRef == null) {
+            order.clientRef = UUID.randomUUID().toString();
+        }
+
+        synchronized (journalLock) {
+            append("A\t" + encode(order) + "\n");
+            uncommitted++;
+        }
+        queue.add(order);
+    }
+
+    // ---------- WRITER THREAD ----------
+
+    private void runWriter() {
+        List<CyberEatDiriApp.Order> batch = new ArrayList<>();
+        Map<String, Integer> strikes = new HashMap<>(); // client_ref -> failed rounds while others succeeded
+
+        while (true) {
+            try {
+                if (batch.isEmpty()) {
+                    collect(batch);
+                } else {
+                    queue.drainTo(batch, Math.max(0, BATCH_SIZE - batch.size())); // newer orders join the retry
+                }
+
+                if (orderDb.insertOrders(batch)) {
+                    // in the database now: let go of them before any journal or listener work can fail
+                    List<CyberEatDiriApp.Order> saved = new ArrayList<>(batch);
+                    batch.clear();
+                    committed(saved);
+                    continue;
+                }
+
+                // One at a time: whatever goes in is done, the rest stays in batch
+                List<CyberEatDiriApp.Order> saved = new ArrayList<>();
+                for (Iterator<CyberEatDiriApp.Order> it = batch.iterator(); it.hasNext(); ) {
+                    CyberEatDiriApp.Order o = it.next();
+                    if (orderDb.insertOrders(List.of(o))) {
+                        saved.add(o);
+                        it.remove();
+                    }
+                }
+                if (!saved.isEmpty()) {
+                    committed(saved);
+                }
+
+                if (saved.isEmpty()) {
+                    // DB locked or down: keep the batch and try again later (it's safe in the journal)
+                    Thread.sleep(RETRY_MILLIS);
+                    continue;
+                }
+
+                // the database works, so what is left is failing on its own data
+                List<CyberEatDiriApp.Order> rejected = new ArrayList<>();
+                for (CyberEatDiriApp.Order o : batch) {
+                    if (strikes.merge(o.clientRef, 1, Integer::sum) >= MAX_STRIKES) {
+                        rejected.add(o);
+                    }
+                }
+                if (!rejected.isEmpty()) {
+                    deadLetter(rejected);
+                    batch.removeAll(rejected);
+                    for (CyberEatDiriApp.Order o : rejected) {
+                        strikes.remove(o.clientRef);
+                    }
+                    markDone(rejected, "D");
+                }
+
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                System.out.println("Order writer error: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Orders already out of the batch: each is marked done once, whatever fails here
+    private void committed(List<CyberEatDiriApp.Order> orders) throws IOException {
+        try {
+            markDone(orders, "C");
+        } finally {
+            for (Consumer<List<CyberEatDiriApp.Order>> l : listeners) {
+                try {
+                    l.accept(orders);
+                } catch (RuntimeException e) {
+                    // one broken listener must not stop the others (or the writer)
+                    System.out.println("Order writer listener failed: " + e.getMessage());
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    // Copies the orders to the dead-letter file (durably); the caller then lets the journal go of them
+    private void deadLetter(List<CyberEatDiriApp.Order> orders) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (CyberEatDiriApp.Order o : orders) {
+            System.out.println("Order " + o.clientRef + " (user " + o.userId + ", P" + o.total
+                    + ") keeps failing to save; moved to " + DEAD_LETTER);
+            sb.append("A\t").append(encode(o)).append("\n");
+        }
+        try (FileChannel dead = FileChannel.open(DEAD_LETTER,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buf = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+            while (buf.hasRemaining()) {
+                dead.write(buf);
+            }
+            dead.force(false);
+        }
+    }
+
+    // Blocks for the first order, then lingers briefly so concurrent checkouts share one commit
+    private void collect(List<CyberEatDiriApp.Order> batch) throws InterruptedException {
+        batch.add(queue.take());
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LINGER_MILLIS);
+        while (batch.size() < BATCH_SIZE) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0) {
+                break;
+            }
+            CyberEatDiriApp.Order next = queue.poll(left, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        queue.drainTo(batch, BATCH_SIZE - batch.size());
+    }
+
+    // kind: "C" committed, "D" dead-lettered; either way the journal no longer owes them
+    private void markDone(List<CyberEatDiriApp.Order> batch, String kind) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (CyberEatDiriApp.Order o : batch) {
+            sb.append(kind).append("\t").append(o.clientRef).append("\n");
+        }
+
+        synchronized (journalLock) {
+            uncommitted -= batch.size();
+            if (uncommitted == 0) {
+                // everything is in SQLite (or the dead-letter file): the journal can start over
+                journal.truncate(0);
+                journal.force(true);
+            } else {
+                append(sb.toString());
+            }
+        }
+    }
+
+    private void append(String text) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (buf.hasRemaining()) {
+            journal.write(buf);
+        }
+        journal.force(false);
+    }
+
+    // ---------- JOURNAL FORMAT ----------
+
+    private static List<CyberEatDiriApp.Order> readUncommitted() throws IOException {
+        Map<String, CyberEatDiriApp.Order> pending = new LinkedHashMap<>();
+        if (!Files.exists(JOURNAL)) {
+            return new ArrayList<>();
+        }
+
+        try (BufferedReader in = Files.newBufferedReader(JOURNAL, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                try {
+                    if (line.startsWith("A\t")) {
+                        CyberEatDiriApp.Order o = decode(line.substring(2));
+                        pending.put(o.clientRef, o);
+                    } else if (line.startsWith("C\t") || line.startsWith("D\t")) {
+                        pending.remove(line.substring(2));
+                    }
+                } catch (RuntimeException e) {
+                    // torn last line from a crash mid-write: that submit never returned, so skip it
+                    System.out.println("Skipping unreadable journal line: " + e.getMessage());
+                }
+            }
+        }
+        return new ArrayList<>(pending.values());
+    }
+
+    private static String encode(CyberEatDiriApp.Order o) {
+        StringBuilder items = new StringBuilder();
+        for (OrderLine line : o.items) {
+            if (items.length() > 0) {
+                items.append(';');
+            }
+            items.append(esc(line.getSku())).append(',')
+                    .append(esc(line.getName())).append(',')
+                    .append(line.getQty()).append(',')
+                    .append(line.getUnitPrice());
+        }
+
+        return String.join("\t",
+                esc(o.clientRef),
+                String.valueOf(o.userId),
+                String.valueOf(o.timestamp),
+                String.valueOf(o.total),
+                esc(o.pcNumber),
+                esc(o.paymentMethod),
+                items.toString());
+    }
+
+    private static CyberEatDiriApp.Order decode(String data) {
+        String[] f = data.split("\t", -1);
+        if (f.length != 7) {
+            throw new IllegalArgumentException("expected 7 fields, got " + f.length);
+        }
+
+        List<OrderLine> lines = new ArrayList<>();
+        if (!f[6].isEmpty()) {
+            for (String item : f[6].split(";")) {
+                String[] p = item.split(",", -1);
+                lines.add(new OrderLine(unesc(p[0]), unesc(p[1]), Integer.parseInt(p[2]), Integer.parseInt(p[3])));
+            }
+        }
+
+        CyberEatDiriApp.Order o = new CyberEatDiriApp.Order(parseTime(f[2]), lines, Integer.parseInt(f[3]), unesc(f[4]), unesc(f[5]));
+        o.clientRef = unesc(f[0]);
+        o.userId = Integer.parseInt(f[1]);
+        return o;
+    }
+
+    // Epoch millis; journals written before order_ts existed hold the "yyyy-MM-dd HH:mm" text instead
+    private static long parseTime(String field) {
+        String s = unesc(field);
+        try {
+            return Long.parseLong(s);
+        } catch (NumberFormatException e) {
+            return java.time.LocalDateTime.parse(s, java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))
+                    .atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+    }
+
+    // URL-encoding keeps tabs, newlines, ';' and ',' out of the fields
+    private static String esc(String s) {
+        return s == null ? "" : URLEncoder.encode(s, StandardCharsets.UTF_8);
+    }
+
+    private static String unesc(String s) {
+        return URLDecoder.decode(s, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,172 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cart, checkout and history logic without any Swing.
+ *
+ * Shared by the station window (CyberEatDiriApp) and the HTTP API (OrderApi), so a
+ * phone order and a station order are priced, built and saved the same way:
+ * prices always come from the menu here, never from the client, and saved orders
+ * go through the OrderWriter journal. The order server checks station orders and
+ * prices credit sales against the same tables (see {@link #priceError}).
+ * A Cart is not thread-safe; callers confine each one to a thread (the EDT) or a
+ * lock (an API session).
+ */
+public final class OrderingService {
+
+    // ---------- MENU ----------
+
+    public static final List<CyberEatDiriApp.MenuItem> FOOD_MENU = List.of(
+            new CyberEatDiriApp.MenuItem("🍕", "Gamer's Pizza", "Loaded with pepperoni, cheese, and extra energy.", 180, "/assets/pizza.png",   12),
+            new CyberEatDiriApp.MenuItem("🍔", "Power Burger",  "Juicy beef patty with all the fixings.",           150, "/assets/burger.png",  8),
+            new CyberEatDiriApp.MenuItem("🍟", "Crispy Fries",  "Golden and crispy, perfect for snacking.",         80,  "/assets/fries.png",   4),
+            new CyberEatDiriApp.MenuItem("🥤", "Energy Drink",  "Stay alert and focused while gaming.",             60,  "/assets/energy.png",  1),
+            new CyberEatDiriApp.MenuItem("🍪", "Cookie Combo",  "Freshly baked cookies for sweet breaks.",          95,  "/assets/cookies.png", 2),
+            new CyberEatDiriApp.MenuItem("☕", "Coffee Boost",  "Premium coffee to keep you sharp.",                75,  "/assets/coffee.png",  3)
+    );
+
+    public static final List<CyberEatDiriApp.CreditItem> CREDIT_PACKS = List.of(
+            new CyberEatDiriApp.CreditItem("⚡", "1 Hour",  "Quick Session",  20,  "/assets/credit_1h.png"),
+            new CyberEatDiriApp.CreditItem("🔥", "3 Hours", "Popular Choice", 60,  "/assets/credit_3h.png"),
+            new CyberEatDiriApp.CreditItem("💎", "5 Hours", "Best Value",     100, "/assets/credit_5h.png"),
+            new CyberEatDiriApp.CreditItem("👑", "10 Hours","Ultimate Pack",  200, "/assets/credit_10h.png")
+    );
+
+    public static final int MAX_QUANTITY = 99;
+
+    public static final List<String> PAYMENT_METHODS = List.of("GCash", "PayPal", "Cash on Hand");
+
+    // pc_number of an order placed without one
+    public static final String NO_PC = "Not specified";
+
+    private static final Map<String, CyberEatDiriApp.MenuItem> BY_SKU = new LinkedHashMap<>();
+    private static final Map<String, CyberEatDiriApp.CreditItem> PACKS_BY_SKU = new LinkedHashMap<>();
+
+    static {
+        for (CyberEatDiriApp.MenuItem item : FOOD_MENU) {
+            BY_SKU.put(item.sku, item);
+        }
+        for (CyberEatDiriApp.CreditItem pack : CREDIT_PACKS) {
+            PACKS_BY_SKU.put(pack.sku, pack);
+        }
+    }
+
+    private final OrderStore orderDb;
+
+    public OrderingService(OrderStore orderDb) {
+        this.orderDb = orderDb;
+    }
+
+    /** The menu entry for a SKU, or null if there is none. */
+    public static CyberEatDiriApp.MenuItem findMenuItem(String sku) {
+        return sku == null ? null : BY_SKU.get(sku);
+    }
+
+    /** The credit pack for a SKU, or null if there is none. */
+    public static CyberEatDiriApp.CreditItem findCreditPack(String sku) {
+        return sku == null ? null : PACKS_BY_SKU.get(sku);
+    }
+
+    /** A credit sale of one pack, priced from CREDIT_PACKS (one line, so it shows in Order History). */
+    public static CyberEatDiriApp.Order creditOrder(CyberEatDiriApp.CreditItem pack, String pcNumber, String paymentMethod) {
+        List<OrderLine> lines = new ArrayList<>(1);
+        lines.add(new OrderLine(pack.sku, pack.hours + " Game Credit", 1, pack.price));
+        return new CyberEatDiriApp.Order(System.currentTimeMillis(), lines, pack.price, pcNumber, paymentMethod);
+    }
+
+    /**
+     * Why a food order doesn't match the menu (unknown SKU, a price that isn't the menu's, a
+     * quantity out of range, or a total that isn't the sum of its lines); null if it does.
+     */
+    public static String priceError(CyberEatDiriApp.Order order) {
+        if (order.items.isEmpty()) {
+            return "order has no items";
+        }
+        long sum = 0;
+        for (OrderLine line : order.items) {
+            CyberEatDiriApp.MenuItem item = findMenuItem(line.getSku());
+            if (item == null) {
+                return "not on the menu: " + line.getSku();
+            }
+            if (line.getUnitPrice() != item.price) {
+                return line.getSku() + " costs P" + item.price + ", not P" + line.getUnitPrice();
+            }
+            if (line.getQty() < 1 || line.getQty() > MAX_QUANTITY) {
+                return "quantity of " + line.getSku() + " not in 1.." + MAX_QUANTITY;
+            }
+            sum += (long) line.getQty() * item.price;
+        }
+        return sum == order.total ? null : "total P" + order.total + " is not the sum of the lines (P" + sum + ")";
+    }
+
+    // ---------- CART ----------
+
+    /**
+     * Adds qty of a menu item to the cart. Returns false (cart unchanged) for an unknown SKU, a bad
+     * quantity, or one that would take the SKU's line past MAX_QUANTITY (repeated adds merge).
+     */
+    public boolean addToCart(Cart cart, String sku, int qty) {
+        CyberEatDiriApp.MenuItem item = findMenuItem(sku);
+        if (item == null || qty < 1 || qty > MAX_QUANTITY - cart.getQuantity(sku)) {
+            return false;
+        }
+        cart.add(new CyberEatDiriApp.CartItem(item.sku, item.icon, item.name, item.imagePath, item.price, qty));
+        return true;
+    }
+
+    /** Removes the cart line for a SKU. Returns false if the cart has no such line. */
+    public boolean removeFromCart(Cart cart, String sku) {
+        for (int row = 0; row < cart.size(); row++) {
+            if (cart.get(row).sku.equals(sku)) {
+                cart.remove(row);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ---------- CHECKOUT ----------
+
+    /**
+     * Turns the cart into an order and empties the cart. Returns null if the cart is empty.
+     * The order is not saved yet; see {@link #submit}.
+     */
+    public CyberEatDiriApp.Order takeOrder(Cart cart, String pcNumber, String paymentMethod) {
+        if (cart.isEmpty()) {
+            return null;
+        }
+
+        List<OrderLine> lines = new ArrayList<>(cart.size());
+        for (CyberEatDiriApp.CartItem c : cart) {
+            lines.add(c.toOrderLine());
+        }
+
+        CyberEatDiriApp.Order order = new CyberEatDiriApp.Order(
+                System.currentTimeMillis(), lines, cart.getTotal(), pcNumber, paymentMethod);
+        cart.clear();
+        return order;
+    }
+
+    /**
+     * Saves a user's order: durable in the journal once this returns, in the database
+     * shortly after (OrderWriter). Blocks for the journal fsync, so not on the EDT.
+     */
+    public void submit(CyberEatDiriApp.Order order, int userId) throws IOException {
+        order.userId = userId;
+        OrderWriter.getInstance().submit(order);
+    }
+
+    // ---------- HISTORY ----------
+
+    /** The user's saved orders, newest first, older than beforeId (Long.MAX_VALUE for the first page). */
+    public List<CyberEatDiriApp.Order> history(int userId, long beforeId, int limit) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        return orderDb.getOrdersPage(userId, beforeId, limit);
+    }
+}
@@ -0,0 +1,149 @@
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Query-plan regression check for every statement in the database helpers
+ * (DatabaseHelper, OrderDatabaseHelper, GameSessionDatabaseHelper, CreditLedgerDatabaseHelper)
+ * and the order server's LoginSessions.
+ *
+ * Builds a scratch database with the current schema, runs EXPLAIN QUERY PLAN on each
+ * statement and fails if any step falls back to a full table scan or a temp B-tree sort.
+ * Run it after touching SQL or SchemaMigrator:
+ *
+ *   java -cp out:sqlite-jdbc.jar QueryPlanCheck
+ *
+ * Exit code 0 = all plans use indexes, 1 = at least one regression.
+ */
+public final class QueryPlanCheck {
+
+    // Indexes with a WHERE clause (e.g. idx_orders_open): walking one only touches the rows it covers
+    private static final Set<String> partialIndexes = new HashSet<>();
+
+    private QueryPlanCheck() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        File scratch = File.createTempFile("cybereatdiri-plan-check", ".db");
+        scratch.deleteOnExit();
+        new File(scratch.getPath() + "-wal").deleteOnExit();
+        new File(scratch.getPath() + "-shm").deleteOnExit();
+
+        // Must be set before Database is first touched
+        System.setProperty("cybereatdiri.db.url", "jdbc:sqlite:" + scratch.getAbsolutePath());
+
+        String err = SchemaMigrator.migrate();
+        if (err != null) {
+            System.out.println("FAIL schema: " + err);
+            System.exit(1);
+        }
+
+        try {
+            loadPartialIndexes();
+        } catch (SQLException e) {
+            System.out.println("FAIL schema: " + e.getMessage());
+            System.exit(1);
+        }
+
+        List<String> failures = new ArrayList<>();
+        check("DatabaseHelper", CyberEatDiriAuth.DatabaseHelper.QUERIES, failures);
+        check("OrderDatabaseHelper", CyberEatDiriApp.OrderDatabaseHelper.QUERIES, failures);
+        check("GameSessionDatabaseHelper", CyberEatDiriApp.GameSessionDatabaseHelper.QUERIES, failures);
+        check("CreditLedgerDatabaseHelper", CyberEatDiriApp.CreditLedgerDatabaseHelper.QUERIES, failures);
+        check("OrderServer.LoginSessions", OrderServer.LoginSessions.QUERIES, failures);
+
+        if (!failures.isEmpty()) {
+            System.out.println();
+            System.out.println(failures.size() + " statement(s) fall back to a scan:");
+            for (String f : failures) {
+                System.out.println("  " + f);
+            }
+            System.exit(1);
+        }
+        System.out.println();
+        System.out.println("All query plans use indexes.");
+        System.exit(0);
+    }
+
+    private static void check(String owner, String[] queries, List<String> failures) {
+        for (String sql : queries) {
+            List<String> plan;
+            try {
+                plan = explain(sql);
+            } catch (SQLException e) {
+                failures.add(owner + ": " + sql + " -> could not explain: " + e.getMessage());
+                continue;
+            }
+
+            String bad = null;
+            for (String step : plan) {
+                if (isScan(step)) {
+                    bad = step;
+                    break;
+                }
+            }
+
+            System.out.println((bad == null ? "ok   " : "FAIL ") + owner + ": " + sql);
+            for (String step : plan) {
+                System.out.println("       " + step);
+            }
+            if (bad != null) {
+                failures.add(owner + ": " + sql + " -> " + bad);
+            }
+        }
+    }
+
+    static List<String> explain(String sql) throws SQLException {
+        List<String> steps = new ArrayList<>();
+
+        try (Connection conn = Database.getConnection();
+             PreparedStatement ps = conn.prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+
+            // Plans don't depend on the values, but every placeholder must be bound
+            int params = ps.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= params; i++) {
+                ps.setObject(i, null);
+            }
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    steps.add(rs.getString("detail"));
+                }
+            }
+        }
+        return steps;
+    }
+
+    private static void loadPartialIndexes() throws SQLException {
+        try (Connection conn = Database.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     "SELECT name FROM sqlite_master WHERE type = 'index' AND sql LIKE '% WHERE %'");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                partialIndexes.add(rs.getString(1).toUpperCase());
+            }
+        }
+    }
+
+    // "SCAN orders" is a full table walk; sorting through a temp B-tree means no usable index order.
+    // A virtual table "scan" whose index string has an M (FTS5 MATCH) is a full-text index lookup,
+    // and a scan of a partial index only visits the rows that index was built for.
+    static boolean isScan(String step) {
+        String s = step.toUpperCase();
+        if (s.startsWith("SCAN CONSTANT ROW") || s.matches("SCAN \\S+ VIRTUAL TABLE INDEX \\d+:\\S*M.*")) {
+            return false;
+        }
+        java.util.regex.Matcher m = java.util.regex.Pattern.compile("SCAN \\S+ USING (?:COVERING )?INDEX (\\S+)").matcher(s);
+        if (m.lookingAt() && partialIndexes.contains(m.group(1))) {
+            return false;
+        }
+        return s.startsWith("SCAN ") || s.contains("USE TEMP B-TREE");
+    }
+}
@@ -0,0 +1,513 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Station-side stores that forward every call to the order server (see StoreProtocol).
+ *
+ * Used instead of the SQLite helpers when the station is started with
+ * -Dcybereatdiri.server=host:port, so only the server touches the database file.
+ * Sockets are kept open and reused (up to POOL_SIZE idle ones); each call borrows
+ * one, so the login screen, history paging and the order writer don't queue behind
+ * each other. When the server can't be reached the call logs the problem and returns
+ * the same sentinel the local helper would on a database error.
+ * {@link #watchStatus} is the exception: a socket of its own that the server pushes
+ * status changes down, republished on this station's OrderEventBus.
+ * Calls on a user's data carry the token the server gave that user's login; kitchen
+ * and report calls carry -Dcybereatdiri.server.staffKey.
+ */
+final class RemoteStore implements UserStore, OrderStore, GameSessionStore, CreditStore {
+
+    private static final int POOL_SIZE = Integer.getInteger("cybereatdiri.server.poolSize", 4);
+    private static final int CONNECT_TIMEOUT_MILLIS = 3000;
+    private static final int READ_TIMEOUT_MILLIS = Integer.getInteger("cybereatdiri.server.timeoutMillis", 10000);
+
+    // Status feed: silence this long means the server is gone (it sends a heartbeat well within it)
+    private static final int FEED_TIMEOUT_MILLIS = 3 * StoreProtocol.HEARTBEAT_MILLIS;
+    private static final long FEED_RETRY_MIN_MILLIS = 1000;
+    private static final long FEED_RETRY_MAX_MILLIS = 30_000;
+    private static final int FEED_RESYNC_ORDERS = 20; // newest orders re-read after a reconnect
+
+    // Round-trip times of every remote call
+    static final LatencyHistogram REMOTE_LATENCY = new LatencyHistogram("remote");
+
+    private final String host;
+    private final int port;
+    private final BlockingQueue<Link> idle = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    // Per-thread, like DatabaseHelper: set from the server's reply or from a network failure
+    private final ThreadLocal<String> lastError = new ThreadLocal<>();
+
+    // Session token from each user's last login on this station; the server checks it on every call for that user
+    private final Map<Integer, String> tokens = new ConcurrentHashMap<>();
+
+    private static final String STAFF_KEY = System.getProperty("cybereatdiri.server.staffKey");
+
+    RemoteStore(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    /** One open socket with its buffered streams. */
+    private static final class Link {
+        final Socket socket;
+        final DataInputStream in;
+        final DataOutputStream out;
+
+        Link(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private interface Request {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private interface Response<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+
+    // ---------- CALLS ----------
+
+    /**
+     * Sends one request and reads its result, or returns fallback if the server can't be reached.
+     * retry: the op is safe to send twice, so a pooled socket that turns out to be dead
+     * (server restarted) is replaced once instead of failing the call.
+     */
+    private <T> T call(byte op, Request request, Response<T> response, T fallback, boolean retry) {
+        long start = System.nanoTime();
+        try {
+            for (int attempt = 0; ; attempt++) {
+                Link link = idle.poll();
+                boolean pooled = link != null;
+                if (link == null) {
+                    link = connect();
+                }
+
+                try {
+                    link.out.writeByte(op);
+                    request.write(link.out);
+                    link.out.flush();
+
+                    byte status = link.in.readByte();
+                    if (status != StoreProtocol.STATUS_OK) {
+                        String msg = StoreProtocol.readString(link.in);
+                        release(link);
+                        System.out.println("Order server error (op " + op + "): " + msg);
+                        lastError.set("Order server error: " + msg);
+                        return fallback;
+                    }
+
+                    T result = response.read(link.in);
+                    release(link);
+                    return result;
+
+                } catch (IOException e) {
+                    link.close();
+                    if (!(pooled && retry && attempt == 0)) {
+                        throw e;
+                    }
+                    closeIdle(); // one stale socket usually means the server restarted: the rest are dead too
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Cannot reach order server " + host + ":" + port + " (op " + op + ")");
+            e.printStackTrace();
+            lastError.set("Cannot reach the order server at " + host + ":" + port + ". Please call staff.");
+            return fallback;
+        } finally {
+            REMOTE_LATENCY.recordSince(start);
+        }
+    }
+
+    private Link connect() throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true); // small request/reply messages
+            socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+            socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+
+            Link link = new Link(socket);
+            StoreProtocol.writeHello(link.out);
+            StoreProtocol.readHello(link.in);
+            return link;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    private void closeIdle() {
+        Link link;
+        while ((link = idle.poll()) != null) {
+            link.close();
+        }
+    }
+
+    private void release(Link link) {
+        if (!idle.offer(link)) {
+            link.close(); // pool already full
+        }
+    }
+
+    // ---------- USERS ----------
+
+    @Override
+    public String getLastError() {
+        return lastError.get();
+    }
+
+    // UserStore.init and OrderStore.init: both ask the server how its schema migration went
+    @Override
+    public void init() {
+        lastError.remove();
+        String err = call(StoreProtocol.OP_INIT, out -> { }, StoreProtocol::readString, null, true);
+        if (err != null) {
+            lastError.set(err);
+        }
+    }
+
+    @Override
+    public boolean registerUser(String email, String phone, String password) {
+        lastError.remove();
+        return call(StoreProtocol.OP_REGISTER, out -> {
+            StoreProtocol.writeString(out, email);
+            StoreProtocol.writeString(out, phone);
+            StoreProtocol.writeString(out, password);
+        }, in -> {
+            boolean ok = in.readBoolean();
+            String err = StoreProtocol.readString(in);
+            if (err != null) {
+                lastError.set(err);
+            }
+            return ok;
+        }, false, false);
+    }
+
+    @Override
+    public UserPrincipal authenticate(String email, String password) {
+        lastError.remove();
+        long start = System.nanoTime();
+        try {
+            return call(StoreProtocol.OP_AUTHENTICATE, out -> {
+                StoreProtocol.writeString(out, email);
+                StoreProtocol.writeString(out, password);
+            }, in -> {
+                UserPrincipal user = null;
+                if (in.readBoolean()) {
+                    user = new UserPrincipal(in.readInt(), StoreProtocol.readString(in), StoreProtocol.readString(in));
+                    tokens.put(user.getId(), StoreProtocol.readString(in));
+                }
+                String err = StoreProtocol.readString(in);
+                if (err != null) {
+                    lastError.set(err);
+                }
+                return user;
+            }, null, true);
+        } finally {
+            CyberEatDiriAuth.DatabaseHelper.LOGIN_LATENCY.recordSince(start);
+        }
+    }
+
+    // ---------- ORDERS ----------
+
+    @Override
+    public boolean insertOrders(List<CyberEatDiriApp.Order> orders) {
+        // safe to resend: orders are unique by client_ref
+        Set<Integer> userIds = new LinkedHashSet<>();
+        for (CyberEatDiriApp.Order o : orders) {
+            userIds.add(o.userId);
+        }
+        return call(StoreProtocol.OP_INSERT_ORDERS, out -> {
+            out.writeInt(userIds.size());
+            for (int userId : userIds) {
+                StoreProtocol.writeString(out, tokens.get(userId)); // none since this station restarted: refused until that user logs in
+            }
+            StoreProtocol.writeOrders(out, orders);
+        }, in -> {
+            boolean ok = in.readBoolean();
+            for (CyberEatDiriApp.Order o : orders) {
+                o.id = in.readLong();
+            }
+            return ok;
+        }, false, true);
+    }
+
+    @Override
+    public int countOrdersForUser(int userId) {
+        return call(StoreProtocol.OP_COUNT_ORDERS, out -> {
+            StoreProtocol.writeString(out, tokens.get(userId));
+            out.writeInt(userId);
+        },
+                DataInputStream::readInt, 0, true);
+    }
+
+    @Override
+    public List<CyberEatDiriApp.Order> getOrdersPage(int userId, long beforeId, int limit) {
+        return call(StoreProtocol.OP_ORDERS_PAGE, out -> {
+            StoreProtocol.writeString(out, tokens.get(userId));
+            out.writeInt(userId);
+            out.writeLong(beforeId);
+            out.writeInt(limit);
+        }, StoreProtocol::readOrders, Collections.emptyList(), true);
+    }
+
+    @Override
+    public long findOrderIdAfter(int userId, long beforeId, int skip) {
+        return call(StoreProtocol.OP_ORDER_ID_AFTER, out -> {
+            StoreProtocol.writeString(out, tokens.get(userId));
+            out.writeInt(userId);
+            out.writeLong(beforeId);
+            out.writeInt(skip);
+        }, DataInputStream::readLong, -1L, true);
+    }
+
+    @Override
+    public List<CyberEatDiriApp.Order> getOrdersBetween(int userId, long fromMillis, long toMillis, int limit) {
+        return call(StoreProtocol.OP_ORDERS_BETWEEN, out -> {
+            StoreProtocol.writeString(out, tokens.get(userId));
+            out.writeInt(userId);
+            out.writeLong(fromMillis);
+            out.writeLong(toMillis);
+            out.writeInt(limit);
+        }, StoreProtocol::readOrders, Collections.emptyList(), true);
+    }
+
+    @Override
+    public List<CyberEatDiriApp.Order> getAllOrdersBetween(long fromMillis, long toMillis, int limit) {
+        return call(StoreProtocol.OP_ALL_ORDERS_BETWEEN, out -> {
+            StoreProtocol.writeString(out, STAFF_KEY);
+            out.writeLong(fromMillis);
+            out.writeLong(toMillis);
+            out.writeInt(limit);
+        }, StoreProtocol::readOrders, Collections.emptyList(), true);
+    }
+
+    @Override
+    public List<CyberEatDiriApp.Order> searchOrders(int userId, String text, int limit) {
+        return call(StoreProtocol.OP_SEARCH_ORDERS, out -> {
+            StoreProtocol.writeString(out, tokens.get(userId));
+            out.writeInt(userId);
+            StoreProtocol.writeString(out, text);
+            out.writeInt(limit);
+        }, StoreProtocol::readOrders, Collections.emptyList(), true);
+    }
+
+    @Override
+    public int[] getSalesForSku(String sku) {
+        return call(StoreProtocol.OP_SALES_FOR_SKU, out -> {
+            StoreProtocol.writeString(out, STAFF_KEY);
+            StoreProtocol.writeString(out, sku);
+        },
+                in -> new int[]{in.readInt(), in.readInt()}, new int[]{0, 0}, true);
+    }
+
+    @Override
+    public boolean updateStatus(long orderId, OrderStatus status) {
+        return call(StoreProtocol.OP_UPDATE_STATUS, out -> {
+            StoreProtocol.writeString(out, STAFF_KEY);
+            out.writeLong(orderId);
+            out.writeByte(status.ordinal());
+        }, DataInputStream::readBoolean, false, true);
+    }
+
+    @Override
+    public List<CyberEatDiriApp.Order> getOpenOrders(int limit) {
+        return call(StoreProtocol.OP_OPEN_ORDERS, out -> {
+            StoreProtocol.writeString(out, STAFF_KEY);
+            out.writeInt(limit);
+        },
+                StoreProtocol::readOrders, Collections.emptyList(), true);
+    }
+
+    @Override
+    public StatusFeed watchStatus(int userId) {
+        StatusWatch watch = new StatusWatch(userId);
+        watch.thread = Thread.ofVirtual().name("order-status-feed-" + userId).start(watch::run);
+        return watch;
+    }
+
+    /**
+     * Keeps one OP_SUBSCRIBE connection open and republishes what it receives.
+     * Reconnects with backoff. After every subscribe, the first one included, the user's newest
+     * orders are re-read and their current status published, which covers changes made before
+     * the subscription was in place (listeners ignore no-ops).
+     */
+    private final class StatusWatch implements StatusFeed {
+        final int userId;
+        Thread thread;
+        private volatile boolean closed;
+        private volatile Link link;
+
+        StatusWatch(int userId) {
+            this.userId = userId;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            Link l = link;
+            if (l != null) {
+                l.close(); // unblocks the read
+            }
+            thread.interrupt(); // or the backoff sleep
+        }
+
+        void run() {
+            long retryMillis = FEED_RETRY_MIN_MILLIS;
+
+            while (!closed) {
+                try {
+                    link = connect();
+                    if (closed) {
+                        return; // closed while connecting
+                    }
+                    link.socket.setSoTimeout(FEED_TIMEOUT_MILLIS);
+                    link.out.writeByte(StoreProtocol.OP_SUBSCRIBE);
+                    StoreProtocol.writeString(link.out, tokens.get(userId));
+                    link.out.writeInt(userId);
+                    link.out.flush();
+                    if (link.in.readByte() != StoreProtocol.STATUS_OK) {
+                        throw new IOException("Status feed refused: " + StoreProtocol.readString(link.in));
+                    }
+
+                    retryMillis = FEED_RETRY_MIN_MILLIS;
+                    // pushes queue up on the server meanwhile, so nothing after this read is missed
+                    for (CyberEatDiriApp.Order o : getOrdersPage(userId, Long.MAX_VALUE, FEED_RESYNC_ORDERS)) {
+                        OrderEventBus.publishRelayed(o, o.status, System.currentTimeMillis());
+                    }
+
+                    while (true) {
+                        byte kind = link.in.readByte();
+                        if (kind == StoreProtocol.PUSH_STATUS) {
+                            CyberEatDiriApp.Order o = StoreProtocol.readOrder(link.in);
+                            OrderStatus status = StoreProtocol.readStatus(link.in);
+                            OrderEventBus.publishRelayed(o, status, link.in.readLong());
+                        } else if (kind != StoreProtocol.PUSH_HEARTBEAT) {
+                            throw new IOException("Bad push frame " + kind);
+                        }
+                    }
+                } catch (IOException e) {
+                    if (closed) {
+                        return;
+                    }
+                    String why = e instanceof EOFException ? "server closed the connection" : e.getMessage();
+                    System.out.println("Order status feed from " + host + ":" + port + " lost (" + why
+                            + "), retrying in " + retryMillis + " ms");
+                } finally {
+                    Link l = link;
+                    if (l != null) {
+                        l.close();
+                    }
+                }
+
+                try {
+                    Thread.sleep(retryMillis);
+                } catch (InterruptedException e) {
+                    return; // closed
+                }
+                retryMillis = Math.min(retryMillis * 2, FEED_RETRY_MAX_MILLIS);
+            }
+        }
+    }
+
+    // ---------- GAME SESSIONS ----------
+
+    @Override
+    public long[] load(int userId) {
+        return call(StoreProtocol.OP_SESSION_LOAD, out -> {
+            StoreProtocol.writeString(out, tokens.get(userId));
+            out.writeInt(userId);
+        },
+                StoreProtocol::readLongPair, null, true);
+    }
+
+    @Override
+    public boolean save(int userId, long purchasedSeconds, long endsAt) {
+        return call(StoreProtocol.OP_SESSION_SAVE, out -> {
+            StoreProtocol.writeString(out, tokens.get(userId));
+            out.writeInt(userId);
+            out.writeLong(purchasedSeconds);
+            out.writeLong(endsAt);
+        }, DataInputStream::readBoolean, false, true);
+    }
+
+    @Override
+    public void delete(int userId) {
+        call(StoreProtocol.OP_SESSION_DELETE, out -> {
+            StoreProtocol.writeString(out, tokens.get(userId));
+            out.writeInt(userId);
+        }, in -> null, null, true);
+    }
+
+    // ---------- CREDITS ----------
+
+    @Override
+    public boolean purchase(CyberEatDiriApp.Order order) {
+        // only the pack is sent: the server prices it and works out the time from its own packs
+        return call(StoreProtocol.OP_CREDIT_PURCHASE, out -> {
+            StoreProtocol.writeString(out, tokens.get(order.userId));
+            out.writeInt(order.userId);
+            StoreProtocol.writeString(out, order.clientRef);
+            out.writeLong(order.timestamp);
+            StoreProtocol.writeString(out, order.items.isEmpty() ? null : order.items.get(0).getSku());
+            StoreProtocol.writeString(out, order.pcNumber);
+            StoreProtocol.writeString(out, order.paymentMethod);
+        }, in -> {
+            boolean ok = in.readBoolean();
+            order.id = in.readLong();
+            return ok;
+        }, false, false);
+    }
+
+    @Override
+    public void recordUsage(int userId, long remainingSeconds) {
+        // safe to resend: the entry is the difference from the stored balance, so a repeat adds nothing
+        call(StoreProtocol.OP_CREDIT_USAGE, out -> {
+            StoreProtocol.writeString(out, tokens.get(userId));
+            out.writeInt(userId);
+            out.writeLong(remainingSeconds);
+        }, in -> null, null, true);
+    }
+
+    @Override
+    public boolean refund(int userId, long orderId) {
+        // not resent: a repeat after a lost reply would report the done refund as refused
+        return call(StoreProtocol.OP_CREDIT_REFUND, out -> {
+            StoreProtocol.writeString(out, tokens.get(userId));
+            out.writeInt(userId);
+            out.writeLong(orderId);
+        }, DataInputStream::readBoolean, false, false);
+    }
+
+    @Override
+    public long[] getBalance(int userId) {
+        return call(StoreProtocol.OP_CREDIT_BALANCE, out -> {
+            StoreProtocol.writeString(out, tokens.get(userId));
+            out.writeInt(userId);
+        },
+                StoreProtocol::readLongPair, null, true);
+    }
+}
@@ -0,0 +1,151 @@
+import javax.swing.*;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.TableColumnModelEvent;
+import javax.swing.event.TableColumnModelListener;
+import java.awt.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Row heights for a table with one wrapping multi-line column (the Order History "Items" column).
+ *
+ * Heights are measured once per (cell text, column width) and cached. They are
+ * (re)applied outside of painting, only for the rows in view, after the model
+ * changes, the column is resized or the table scrolls. Several triggers in one
+ * EDT turn coalesce into a single pass, so the renderer never has to touch
+ * the table while it paints.
+ */
+public class RowHeightCache {
+
+    private static final int MAX_ENTRIES = 2000;
+
+    private final JTable table;
+    private final int column;
+    private final int minHeight;
+    private final JTextArea measurer = new JTextArea();
+
+    // "width|text" -> height, LRU so a long history can't grow it without bound
+    private final LinkedHashMap<String, Integer> heights = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private int lastWidth = -1;
+    private boolean scheduled;
+
+    private RowHeightCache(JTable table, int column, Font font) {
+        this.table = table;
+        this.column = column;
+        this.minHeight = table.getRowHeight();
+
+        measurer.setLineWrap(true);
+        measurer.setWrapStyleWord(true);
+        measurer.setFont(font);
+    }
+
+    /**
+     * Attaches height management to a table already placed in scrollPane.
+     * column is the model/view index of the wrapping column; font must match its renderer.
+     */
+    public static RowHeightCache install(JTable table, JScrollPane scrollPane, int column, Font font) {
+        RowHeightCache cache = new RowHeightCache(table, column, font);
+
+        table.getModel().addTableModelListener(e -> cache.schedule());
+        scrollPane.getViewport().addChangeListener(e -> cache.schedule());
+        table.getColumnModel().addColumnModelListener(new TableColumnModelListener() {
+            @Override
+            public void columnMarginChanged(ChangeEvent e) {
+                cache.schedule(); // fired while the user drags a column edge
+            }
+
+            @Override
+            public void columnAdded(TableColumnModelEvent e) {
+            }
+
+            @Override
+            public void columnRemoved(TableColumnModelEvent e) {
+            }
+
+            @Override
+            public void columnMoved(TableColumnModelEvent e) {
+            }
+
+            @Override
+            public void columnSelectionChanged(ListSelectionEvent e) {
+            }
+        });
+
+        cache.schedule();
+        return cache;
+    }
+
+    public int size() {
+        return heights.size();
+    }
+
+    private void schedule() {
+        if (scheduled) {
+            return;
+        }
+        scheduled = true;
+        SwingUtilities.invokeLater(() -> {
+            scheduled = false;
+            applyVisibleRows();
+        });
+    }
+
+    private void applyVisibleRows() {
+        int rows = table.getRowCount();
+        if (rows == 0 || column >= table.getColumnCount()) {
+            return;
+        }
+
+        int width = table.getColumnModel().getColumn(column).getWidth();
+        if (width <= 0) {
+            return;
+        }
+        if (width != lastWidth) {
+            // every cached height was for the old width
+            heights.clear();
+            lastWidth = width;
+        }
+
+        Rectangle visible = table.getVisibleRect();
+        if (visible.isEmpty()) {
+            return; // not on screen yet; the viewport will report when it is
+        }
+        int first = table.rowAtPoint(new Point(0, visible.y));
+        int last = table.rowAtPoint(new Point(0, visible.y + visible.height - 1));
+        if (first < 0) {
+            first = 0;
+        }
+        if (last < 0) {
+            last = rows - 1;
+        }
+
+        for (int row = first; row <= last; row++) {
+            Object value = table.getValueAt(row, column);
+            int h = heightFor(value == null ? "" : value.toString(), width);
+            if (table.getRowHeight(row) != h) {
+                table.setRowHeight(row, h);
+            }
+        }
+    }
+
+    private int heightFor(String text, int width) {
+        String key = width + "|" + text;
+        Integer cached = heights.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        measurer.setText(text);
+        measurer.setSize(width, Short.MAX_VALUE);
+        int h = Math.max(minHeight, measurer.getPreferredSize().height);
+        heights.put(key, h);
+        return h;
+    }
+}
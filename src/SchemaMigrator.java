@@ -0,0 +1,282 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Versioned schema bootstrap for cybereatdiri_users.db.
+ *
+ * The current version lives in the database itself (PRAGMA user_version).
+ * {@link #migrate()} runs once per process and applies every migration
+ * newer than that version, each in its own write-locked transaction, so
+ * several stations starting at once don't apply the same step twice.
+ *
+ * To change the schema, append a new Migration to MIGRATIONS — never edit
+ * one that has already shipped.
+ */
+public final class SchemaMigrator {
+
+    interface Step {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    private static final class Migration {
+        final int version;
+        final String description;
+        final Step step;
+
+        Migration(int version, String description, Step step) {
+            this.version = version;
+            this.description = description;
+            this.step = step;
+        }
+    }
+
+    private static final Migration[] MIGRATIONS = new Migration[] {
+            new Migration(1, "users table", sql(
+                    "CREATE TABLE IF NOT EXISTS users (" +
+                            "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                            "email TEXT UNIQUE NOT NULL," +
+                            "phone TEXT NOT NULL," +
+                            "password TEXT NOT NULL" +
+                            ")"
+            )),
+            new Migration(2, "orders table", sql(
+                    "CREATE TABLE IF NOT EXISTS orders (" +
+                            "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                            "user_id INTEGER NOT NULL," +
+                            "order_time TEXT NOT NULL," +
+                            "items_summary TEXT NOT NULL," +
+                            "total INTEGER NOT NULL," +
+                            "pc_number TEXT," +
+                            "payment_method TEXT" +
+                            ")"
+            )),
+            // History paging filters by user and walks id downwards
+            new Migration(3, "orders(user_id, id) index", sql(
+                    "CREATE INDEX IF NOT EXISTS idx_orders_user_id ON orders(user_id, id DESC)"
+            )),
+            new Migration(4, "order_items table + backfill from items_summary", conn -> {
+                sql(
+                        "CREATE TABLE IF NOT EXISTS order_items (" +
+                                "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                                "order_id INTEGER NOT NULL REFERENCES orders(id) ON DELETE CASCADE," +
+                                "sku TEXT NOT NULL," +
+                                "name TEXT NOT NULL," +
+                                "qty INTEGER NOT NULL," +
+                                "unit_price INTEGER NOT NULL" +
+                                ")",
+                        "CREATE INDEX IF NOT EXISTS idx_order_items_order ON order_items(order_id)",
+                        // covering index for per-SKU sales totals
+                        "CREATE INDEX IF NOT EXISTS idx_order_items_sku ON order_items(sku, qty, unit_price)"
+                ).apply(conn);
+                backfillOrderItems(conn);
+            }),
+            // Idempotency key for write-behind checkouts (see OrderWriter)
+            new Migration(5, "orders.client_ref", sql(
+                    "ALTER TABLE orders ADD COLUMN client_ref TEXT",
+                    "CREATE UNIQUE INDEX IF NOT EXISTS idx_orders_client_ref ON orders(client_ref)"
+            )),
+            // Paid game time that survives logout, crashes and reboots (one running session per user)
+            new Migration(6, "game_sessions table", sql(
+                    "CREATE TABLE IF NOT EXISTS game_sessions (" +
+                            "user_id INTEGER PRIMARY KEY REFERENCES users(id) ON DELETE CASCADE," +
+                            "purchased_seconds INTEGER NOT NULL," +
+                            "ends_at INTEGER NOT NULL," +       // epoch millis
+                            "updated_at INTEGER NOT NULL" +     // epoch millis of the last checkpoint
+                            ")"
+            )),
+            // Append-only history of game-credit changes, plus the running balance kept next to it
+            new Migration(7, "credit_ledger + credit_balance", sql(
+                    "CREATE TABLE IF NOT EXISTS credit_ledger (" +
+                            "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                            "user_id INTEGER NOT NULL REFERENCES users(id)," +
+                            "kind TEXT NOT NULL CHECK (kind IN ('purchase', 'consume', 'refund'))," +
+                            "seconds INTEGER NOT NULL," +          // signed change to the balance
+                            "amount INTEGER NOT NULL DEFAULT 0," + // pesos paid (purchase) or returned (refund)
+                            "order_id INTEGER REFERENCES orders(id)," +
+                            "created_at INTEGER NOT NULL" +        // epoch millis
+                            ")",
+                    "CREATE INDEX IF NOT EXISTS idx_credit_ledger_user ON credit_ledger(user_id, id)",
+                    "CREATE TRIGGER IF NOT EXISTS credit_ledger_no_update BEFORE UPDATE ON credit_ledger " +
+                            "BEGIN SELECT RAISE(ABORT, 'credit_ledger is append-only'); END",
+                    "CREATE TRIGGER IF NOT EXISTS credit_ledger_no_delete BEFORE DELETE ON credit_ledger " +
+                            "BEGIN SELECT RAISE(ABORT, 'credit_ledger is append-only'); END",
+                    "CREATE TABLE IF NOT EXISTS credit_balance (" +
+                            "user_id INTEGER PRIMARY KEY REFERENCES users(id)," +
+                            "seconds INTEGER NOT NULL," +          // SUM(credit_ledger.seconds) for the user
+                            "total_spent INTEGER NOT NULL," +
+                            "updated_at INTEGER NOT NULL" +
+                            ")"
+            )),
+            // Refunds look up a credit sale's entries by order_id; foreign keys are on, so deleting
+            // an order also looks for ledger rows still pointing at it. Both scanned without this.
+            new Migration(8, "credit_ledger(order_id) index", sql(
+                    "CREATE INDEX IF NOT EXISTS idx_credit_ledger_order ON credit_ledger(order_id)"
+            )),
+            // Sortable, range-queryable order time (epoch millis) next to the legacy minute-precision text
+            new Migration(9, "orders.order_ts epoch millis + indexes", sql(
+                    "ALTER TABLE orders ADD COLUMN order_ts INTEGER",
+                    // order_time was written in local time: 'utc' converts it to UTC seconds
+                    "UPDATE orders SET order_ts = CAST(strftime('%s', order_time, 'utc') AS INTEGER) * 1000 " +
+                            "WHERE order_ts IS NULL",
+                    "CREATE INDEX IF NOT EXISTS idx_orders_user_ts ON orders(user_id, order_ts)",
+                    "CREATE INDEX IF NOT EXISTS idx_orders_ts ON orders(order_ts)",
+                    // Stations still on an older build only write order_time; fill order_ts for them
+                    "CREATE TRIGGER IF NOT EXISTS orders_fill_order_ts AFTER INSERT ON orders " +
+                            "WHEN NEW.order_ts IS NULL BEGIN " +
+                            "UPDATE orders SET order_ts = CAST(strftime('%s', NEW.order_time, 'utc') AS INTEGER) * 1000 " +
+                            "WHERE id = NEW.id; END"
+            )),
+            // Full-text index over what was ordered, kept in step with orders by triggers
+            new Migration(10, "orders_fts full-text index", sql(
+                    "CREATE VIRTUAL TABLE IF NOT EXISTS orders_fts USING fts5(" +
+                            "items_summary, content='orders', content_rowid='id', " +
+                            "tokenize='unicode61 remove_diacritics 2')",
+                    "CREATE TRIGGER IF NOT EXISTS orders_fts_insert AFTER INSERT ON orders BEGIN " +
+                            "INSERT INTO orders_fts(rowid, items_summary) VALUES (NEW.id, NEW.items_summary); END",
+                    "CREATE TRIGGER IF NOT EXISTS orders_fts_delete AFTER DELETE ON orders BEGIN " +
+                            "INSERT INTO orders_fts(orders_fts, rowid, items_summary) " +
+                            "VALUES ('delete', OLD.id, OLD.items_summary); END",
+                    "CREATE TRIGGER IF NOT EXISTS orders_fts_update AFTER UPDATE OF items_summary ON orders BEGIN " +
+                            "INSERT INTO orders_fts(orders_fts, rowid, items_summary) " +
+                            "VALUES ('delete', OLD.id, OLD.items_summary); " +
+                            "INSERT INTO orders_fts(rowid, items_summary) VALUES (NEW.id, NEW.items_summary); END",
+                    // index the orders that already exist
+                    "INSERT INTO orders_fts(orders_fts) VALUES ('rebuild')"
+            )),
+            // Kitchen state per order (OrderStatus); only open orders are indexed, so the index stays small
+            new Migration(11, "orders.status + open-orders index", sql(
+                    "ALTER TABLE orders ADD COLUMN status TEXT NOT NULL DEFAULT 'queued'",
+                    // everything ordered before the kitchen queue existed has been served, credit
+                    // sales included; from here on credit sales are inserted as 'delivered'
+                    "UPDATE orders SET status = 'delivered'",
+                    "CREATE INDEX IF NOT EXISTS idx_orders_open ON orders(id) WHERE status <> 'delivered'"
+            )),
+            // Order server logins (OrderServer.LoginSessions); kept here so a server restart doesn't log every station out
+            new Migration(12, "login_sessions table", sql(
+                    "CREATE TABLE IF NOT EXISTS login_sessions (" +
+                            "token TEXT PRIMARY KEY," +
+                            "user_id INTEGER NOT NULL REFERENCES users(id)," +
+                            "created_at INTEGER NOT NULL" +        // epoch millis
+                            ")",
+                    "CREATE INDEX IF NOT EXISTS idx_login_sessions_created ON login_sessions(created_at)"
+            ))
+    };
+
+    private static boolean done;
+    private static String lastError;
+
+    private SchemaMigrator() {
+    }
+
+    /**
+     * Brings the schema up to date. Only the first call does any work;
+     * later calls return the cached outcome.
+     *
+     * @return null on success, otherwise a message suitable for an error dialog
+     */
+    public static synchronized String migrate() {
+        if (done) {
+            return lastError;
+        }
+        done = true;
+
+        try (Connection conn = Database.getConnection()) {
+            for (Migration m : MIGRATIONS) {
+                apply(conn, m);
+            }
+        } catch (SQLException e) {
+            lastError = "Database init error: " + e.getMessage();
+            e.printStackTrace();
+        }
+        return lastError;
+    }
+
+    public static int latestVersion() {
+        return MIGRATIONS[MIGRATIONS.length - 1].version;
+    }
+
+    private static void apply(Connection conn, Migration m) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            // Cheap check first so an up-to-date database never takes the write lock
+            if (currentVersion(st) >= m.version) {
+                return;
+            }
+
+            st.execute("BEGIN IMMEDIATE");
+            try {
+                // Another station may have applied it while we waited for the lock
+                if (currentVersion(st) < m.version) {
+                    m.step.apply(conn);
+                    st.execute("PRAGMA user_version = " + m.version);
+                    System.out.println("Applied schema migration v" + m.version + ": " + m.description);
+                }
+                st.execute("COMMIT");
+            } catch (SQLException e) {
+                st.execute("ROLLBACK");
+                throw new SQLException("Schema migration v" + m.version
+                        + " (" + m.description + ") failed: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private static int currentVersion(Statement st) throws SQLException {
+        try (ResultSet rs = st.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    // Re-parses every legacy "Name xQty = PTotal" blob into order_items rows. All or nothing per
+    // order (see parseLegacy): a summary that doesn't add up gets no rows and keeps showing as text.
+    private static void backfillOrderItems(Connection conn) throws SQLException {
+        String select = "SELECT id, items_summary, total FROM orders " +
+                "WHERE NOT EXISTS (SELECT 1 FROM order_items oi WHERE oi.order_id = orders.id)";
+        String insert = "INSERT INTO order_items(order_id, sku, name, qty, unit_price) VALUES(?, ?, ?, ?, ?)";
+
+        int orders = 0;
+        int lines = 0;
+        int unparsed = 0;
+
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(select);
+             PreparedStatement ps = conn.prepareStatement(insert)) {
+
+            while (rs.next()) {
+                long orderId = rs.getLong("id");
+                List<OrderLine> parsed = OrderLine.parseLegacy(rs.getString("items_summary"), rs.getInt("total"));
+                if (parsed.isEmpty()) {
+                    unparsed++;
+                    continue;
+                }
+
+                for (OrderLine line : parsed) {
+                    ps.setLong(1, orderId);
+                    ps.setString(2, line.getSku());
+                    ps.setString(3, line.getName());
+                    ps.setInt(4, line.getQty());
+                    ps.setInt(5, line.getUnitPrice());
+                    ps.addBatch();
+                    lines++;
+                }
+                orders++;
+            }
+            ps.executeBatch();
+        }
+
+        System.out.println("Backfilled " + lines + " order item(s) for " + orders + " order(s)"
+                + (unparsed > 0 ? ", " + unparsed + " summary(ies) could not be parsed" : ""));
+    }
+
+    private static Step sql(String... statements) {
+        return conn -> {
+            try (Statement st = conn.createStatement()) {
+                for (String s : statements) {
+                    st.executeUpdate(s);
+                }
+            }
+        };
+    }
+}
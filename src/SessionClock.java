@@ -0,0 +1,165 @@
+import javax.swing.*;
+import java.awt.event.HierarchyEvent;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+/**
+ * Countdown for purchased game time, based on a System.nanoTime() deadline.
+ *
+ * Remaining time is always computed from the deadline when read, never decremented,
+ * so a busy EDT or an open modal dialog can delay the display but not shorten or
+ * stretch the session. Two timers, both one-shot and both EDT-only:
+ * - expiry: fires once at the deadline and calls onExpired;
+ * - label: wakes up at each whole-second boundary, only while the label is showing,
+ *   and sets the text only if the displayed second changed.
+ * nanoTime doesn't survive a restart, so saved sessions go through the wall clock
+ * ({@link #getEndsAtEpochMillis()} / {@link #resume(long)}).
+ */
+public final class SessionClock {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final Runnable onExpired;
+    private final Timer expiryTimer;
+    private final Timer labelTimer;
+
+    private long deadline;     // System.nanoTime() value; only meaningful while running
+    private boolean running;
+
+    private JLabel label;
+    private LongFunction<String> format;
+    private long shownSeconds = -1;
+
+    public SessionClock(Runnable onExpired) {
+        this.onExpired = onExpired;
+
+        expiryTimer = new Timer(0, e -> checkExpired());
+        expiryTimer.setRepeats(false);
+
+        labelTimer = new Timer(0, e -> refreshLabel());
+        labelTimer.setRepeats(false);
+    }
+
+    // ---------- TIME ----------
+
+    /** Adds time: extends the current session, or starts one if none is running. */
+    public void add(long seconds) {
+        if (seconds <= 0) return;
+        extend(seconds * SECOND);
+    }
+
+    /** Takes time back (a refund): shortens the session, which ends at once if nothing is left. */
+    public void take(long seconds) {
+        if (seconds <= 0 || !running) return;
+        deadline -= seconds * SECOND;
+
+        scheduleExpiry();
+        refreshLabel();
+    }
+
+    /**
+     * Continues a saved session that ends at endsAt (wall clock, epoch millis), on top of
+     * any time already running. Does nothing if that moment has passed.
+     */
+    public void resume(long endsAtEpochMillis) {
+        long leftMillis = endsAtEpochMillis - System.currentTimeMillis();
+        if (leftMillis <= 0) return;
+        extend(TimeUnit.MILLISECONDS.toNanos(leftMillis));
+    }
+
+    /** When the session ends on the wall clock (epoch millis), for saving; 0 if none is running. */
+    public long getEndsAtEpochMillis() {
+        long left = getRemainingNanos();
+        return left > 0 ? System.currentTimeMillis() + TimeUnit.NANOSECONDS.toMillis(left) : 0;
+    }
+
+    private void extend(long nanos) {
+        long now = System.nanoTime();
+        if (!running || deadline - now <= 0) {
+            deadline = now;
+            running = true;
+        }
+        deadline += nanos;
+
+        scheduleExpiry();
+        refreshLabel();
+    }
+
+    /** Ends the session without calling onExpired (e.g. on logout). */
+    public void stop() {
+        running = false;
+        expiryTimer.stop();
+        labelTimer.stop();
+        refreshLabel();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long getRemainingNanos() {
+        return running ? Math.max(0, deadline - System.nanoTime()) : 0;
+    }
+
+    /** Whole seconds left, rounded up (a session with 0.2s left still shows 00:00:01). */
+    public long getRemainingSeconds() {
+        return (getRemainingNanos() + SECOND - 1) / SECOND;
+    }
+
+    private void scheduleExpiry() {
+        long left = getRemainingNanos();
+        expiryTimer.setInitialDelay((int) Math.min(Integer.MAX_VALUE, TimeUnit.NANOSECONDS.toMillis(left) + 1));
+        expiryTimer.restart();
+    }
+
+    private void checkExpired() {
+        if (!running) return;
+
+        if (getRemainingNanos() > 0) {
+            scheduleExpiry(); // woke up early (delay was capped or time was added)
+            return;
+        }
+        running = false;
+        labelTimer.stop();
+        refreshLabel();
+        onExpired.run();
+    }
+
+    // ---------- LABEL ----------
+
+    /** Keeps label's text as format(remaining seconds) while it is on screen. */
+    public void attachLabel(JLabel label, LongFunction<String> format) {
+        this.label = label;
+        this.format = format;
+
+        label.addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+                if (label.isShowing()) {
+                    refreshLabel();
+                } else {
+                    labelTimer.stop(); // hidden tab: no wake-ups at all
+                }
+            }
+        });
+        refreshLabel();
+    }
+
+    private void refreshLabel() {
+        if (label == null) return;
+
+        long seconds = getRemainingSeconds();
+        if (seconds != shownSeconds) {
+            shownSeconds = seconds;
+            label.setText(format.apply(seconds));
+        }
+
+        if (running && label.isShowing()) {
+            // next tick right after the displayed value changes
+            long untilNextSecond = getRemainingNanos() % SECOND;
+            labelTimer.setInitialDelay((int) TimeUnit.NANOSECONDS.toMillis(untilNextSecond) + 1);
+            labelTimer.restart();
+        } else {
+            labelTimer.stop();
+        }
+    }
+}
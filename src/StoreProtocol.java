@@ -0,0 +1,208 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Wire format between stations (RemoteStore) and the order server (OrderServer).
+ *
+ * Binary over a plain TCP socket, big-endian via DataInput/DataOutput:
+ * - on connect both sides send MAGIC + VERSION and hang up on a mismatch;
+ * - then any number of requests on the same socket, one at a time:
+ *   request = op byte + arguments, response = status byte + result (STATUS_OK)
+ *   or an error message (STATUS_ERROR: refused, or the server hit an unexpected exception);
+ * - OP_AUTHENTICATE answers with a session token. Every op on one user's data starts
+ *   with that user's token, and the server refuses it for any other user id; kitchen
+ *   and report ops start with the staff key instead (cybereatdiri.server.staffKey);
+ * - except OP_SUBSCRIBE: after its STATUS_OK the socket only carries server pushes
+ *   (PUSH_STATUS frames, PUSH_HEARTBEAT when idle) until either side hangs up.
+ * Strings are an int byte length (-1 for null) followed by UTF-8, so long item
+ * summaries aren't limited to writeUTF's 64 KB.
+ */
+final class StoreProtocol {
+
+    static final int MAGIC = 0x43454431; // "CED1"
+    static final int VERSION = 4; // 2: orders carry their kitchen status; 3: status push; 4: session tokens
+
+    static final int DEFAULT_PORT = 7070;
+
+    // UserStore
+    static final byte OP_INIT = 1;
+    static final byte OP_REGISTER = 2;
+    static final byte OP_AUTHENTICATE = 3;
+
+    // OrderStore (init shares OP_INIT: one schema serves both); INSERT_ORDERS sends a token per user in the batch
+    static final byte OP_INSERT_ORDERS = 11;
+    static final byte OP_COUNT_ORDERS = 12;
+    static final byte OP_ORDERS_PAGE = 13;
+    static final byte OP_ORDER_ID_AFTER = 14;
+    static final byte OP_ORDERS_BETWEEN = 15;
+    static final byte OP_ALL_ORDERS_BETWEEN = 16;
+    static final byte OP_SEARCH_ORDERS = 17;
+    static final byte OP_SALES_FOR_SKU = 18;
+
+    // GameSessionStore
+    static final byte OP_SESSION_LOAD = 20;
+    static final byte OP_SESSION_SAVE = 21;
+    static final byte OP_SESSION_DELETE = 22;
+
+    // CreditStore; a purchase names its pack by sku and the server prices it
+    static final byte OP_CREDIT_PURCHASE = 30;
+    static final byte OP_CREDIT_USAGE = 31;
+    static final byte OP_CREDIT_REFUND = 32;
+    static final byte OP_CREDIT_BALANCE = 33;
+
+    // Kitchen (OrderStore status calls); staff ops, like ALL_ORDERS_BETWEEN and SALES_FOR_SKU
+    static final byte OP_UPDATE_STATUS = 40;
+    static final byte OP_OPEN_ORDERS = 41;
+
+    // Status push (token + userId); the connection is the subscription
+    static final byte OP_SUBSCRIBE = 50;
+    static final byte PUSH_HEARTBEAT = 0;
+    static final byte PUSH_STATUS = 1;    // order + status byte + changed-at millis
+    static final int HEARTBEAT_MILLIS = 15_000;
+
+    static final byte STATUS_OK = 0;
+    static final byte STATUS_ERROR = 1;
+
+    // Sanity limit for lengths read off the wire
+    private static final int MAX_LENGTH = 16 * 1024 * 1024;
+
+    private StoreProtocol() {
+    }
+
+    // ---------- HANDSHAKE ----------
+
+    static void writeHello(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.flush();
+    }
+
+    static void readHello(DataInputStream in) throws IOException {
+        int magic = in.readInt();
+        int version = in.readInt();
+        if (magic != MAGIC || version != VERSION) {
+            throw new IOException("Not a Cyber-EatDiri order server/client (protocol " + version + ")");
+        }
+    }
+
+    // ---------- VALUES ----------
+
+    static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        int len = readLength(in);
+        if (len < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[len];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static int readLength(DataInputStream in) throws IOException {
+        int len = in.readInt();
+        if (len < -1 || len > MAX_LENGTH) {
+            throw new IOException("Bad length on the wire: " + len);
+        }
+        return len;
+    }
+
+    // {a, b} pairs such as a session or a balance; null stays null
+    static void writeLongPair(DataOutputStream out, long[] pair) throws IOException {
+        out.writeBoolean(pair != null);
+        if (pair != null) {
+            out.writeLong(pair[0]);
+            out.writeLong(pair[1]);
+        }
+    }
+
+    static long[] readLongPair(DataInputStream in) throws IOException {
+        return in.readBoolean() ? new long[]{in.readLong(), in.readLong()} : null;
+    }
+
+    // ---------- ORDERS ----------
+
+    static void writeOrder(DataOutputStream out, CyberEatDiriApp.Order o) throws IOException {
+        out.writeLong(o.id);
+        out.writeInt(o.userId);
+        writeString(out, o.clientRef);
+        out.writeLong(o.timestamp);
+        writeString(out, o.itemsSummary);
+        out.writeInt(o.total);
+        writeString(out, o.pcNumber);
+        writeString(out, o.paymentMethod);
+        out.writeByte(o.status.ordinal());
+
+        out.writeInt(o.items.size());
+        for (OrderLine line : o.items) {
+            writeString(out, line.getSku());
+            writeString(out, line.getName());
+            out.writeInt(line.getQty());
+            out.writeInt(line.getUnitPrice());
+        }
+    }
+
+    static CyberEatDiriApp.Order readOrder(DataInputStream in) throws IOException {
+        long id = in.readLong();
+        int userId = in.readInt();
+        String clientRef = readString(in);
+        long timestamp = in.readLong();
+        String summary = readString(in);
+        int total = in.readInt();
+        String pc = readString(in);
+        String payment = readString(in);
+        OrderStatus status = readStatus(in);
+
+        CyberEatDiriApp.Order o = new CyberEatDiriApp.Order(id, timestamp, summary, total, pc, payment);
+        o.userId = userId;
+        o.clientRef = clientRef;
+        o.status = status;
+
+        int n = readLength(in);
+        for (int i = 0; i < n; i++) {
+            o.items.add(new OrderLine(readString(in), readString(in), in.readInt(), in.readInt()));
+        }
+        return o;
+    }
+
+    static OrderStatus readStatus(DataInputStream in) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        OrderStatus[] all = OrderStatus.values();
+        if (ordinal >= all.length) {
+            throw new IOException("Bad order status on the wire: " + ordinal);
+        }
+        return all[ordinal];
+    }
+
+    static void writeOrders(DataOutputStream out, List<CyberEatDiriApp.Order> orders) throws IOException {
+        out.writeInt(orders.size());
+        for (CyberEatDiriApp.Order o : orders) {
+            writeOrder(out, o);
+        }
+    }
+
+    static List<CyberEatDiriApp.Order> readOrders(DataInputStream in) throws IOException {
+        int n = readLength(in);
+        if (n < 0) {
+            throw new EOFException("Missing order list");
+        }
+        List<CyberEatDiriApp.Order> orders = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            orders.add(readOrder(in));
+        }
+        return orders;
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * Picks where a station's data lives.
+ *
+ * Without settings every helper talks to the local SQLite file, as before.
+ * With -Dcybereatdiri.server=host[:port] all of them go to that OrderServer instead
+ * (one shared RemoteStore, so its socket pool is shared too).
+ */
+public final class Stores {
+
+    private static final String SERVER = System.getProperty("cybereatdiri.server");
+
+    private static RemoteStore remote;
+
+    private Stores() {
+    }
+
+    public static boolean isRemote() {
+        return SERVER != null && !SERVER.isBlank();
+    }
+
+    public static UserStore users() {
+        return isRemote() ? remote() : new CyberEatDiriAuth.DatabaseHelper();
+    }
+
+    public static OrderStore orders() {
+        return isRemote() ? remote() : new CyberEatDiriApp.OrderDatabaseHelper();
+    }
+
+    public static GameSessionStore sessions() {
+        return isRemote() ? remote() : new CyberEatDiriApp.GameSessionDatabaseHelper();
+    }
+
+    public static CreditStore credits() {
+        return isRemote() ? remote() : new CyberEatDiriApp.CreditLedgerDatabaseHelper();
+    }
+
+    private static synchronized RemoteStore remote() {
+        if (remote == null) {
+            String host = SERVER.trim();
+            int port = StoreProtocol.DEFAULT_PORT;
+
+            int colon = host.lastIndexOf(':');
+            if (colon > 0) {
+                try {
+                    port = Integer.parseInt(host.substring(colon + 1));
+                    host = host.substring(0, colon);
+                } catch (NumberFormatException e) {
+                    System.out.println("Bad port in cybereatdiri.server=" + SERVER + ", using " + port);
+                    host = host.substring(0, colon);
+                }
+            }
+            remote = new RemoteStore(host, port);
+        }
+        return remote;
+    }
+}
@@ -0,0 +1,27 @@
+/**
+ * The logged-in user as resolved by a single credential lookup.
+ */
+public class UserPrincipal {
+
+    private final int id;
+    private final String email;
+    private final String phone;
+
+    public UserPrincipal(int id, String email, String phone) {
+        this.id = id;
+        this.email = email;
+        this.phone = phone;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+}
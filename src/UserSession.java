@@ -2,10 +2,18 @@ public class UserSession {
 
     private static int currentUserId = -1;
     private static String currentUserEmail = null;
+    private static String currentUserPhone = null;
 
     public static void setUser(int userId, String email) {
         currentUserId = userId;
         currentUserEmail = email;
+        currentUserPhone = null;
+    }
+
+    public static void setUser(UserPrincipal user) {
+        currentUserId = user.getId();
+        currentUserEmail = user.getEmail();
+        currentUserPhone = user.getPhone();
     }
 
     public static int getCurrentUserId() {
@@ -16,6 +24,10 @@ public class UserSession {
         return currentUserEmail;
     }
 
+    public static String getCurrentUserPhone() {
+        return currentUserPhone;
+    }
+
     public static boolean isLoggedIn() {
         return currentUserId != -1;
     }
@@ -23,6 +35,6 @@ public class UserSession {
     public static void clear() {
         currentUserId = -1;
         currentUserEmail = null;
+        currentUserPhone = null;
     }
 }
-
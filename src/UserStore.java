@@ -0,0 +1,19 @@
+/**
+ * Accounts: sign-up and login.
+ *
+ * Implemented by CyberEatDiriAuth.DatabaseHelper (this station's SQLite file) and by
+ * RemoteStore (the order server); {@link Stores#users()} picks one.
+ */
+public interface UserStore {
+
+    // Makes sure the store is usable; on failure getLastError() says why
+    void init();
+
+    // Why the last call on this thread failed, or null
+    String getLastError();
+
+    boolean registerUser(String email, String phone, String password);
+
+    /** The user for these credentials; null if they don't match (lastError null) or on error (lastError set). */
+    UserPrincipal authenticate(String email, String password);
+}
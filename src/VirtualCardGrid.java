@@ -0,0 +1,203 @@
+import javax.swing.*;
+import javax.swing.event.ChangeListener;
+import java.awt.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Scrollable grid of same-sized cards that only keeps components for the rows in view.
+ *
+ * Replaces a GridLayout holding one card per menu entry: as the user scrolls, cards
+ * that leave the viewport go back to a spare pool and are re-bound to the entries
+ * coming into view, so the number of live components depends on the window size,
+ * not on the size of the catalog. All cards get the height of the first entry's card
+ * (GridLayout made every cell the same size as well). Put it directly in a JScrollPane.
+ */
+public class VirtualCardGrid<T> extends JPanel implements Scrollable {
+
+    /** Creates card components and fills them in for an entry. */
+    public interface Binder<T> {
+        JComponent create();
+
+        void bind(JComponent card, T item);
+    }
+
+    private static final int OVERSCAN_ROWS = 1; // extra row above/below so fast scrolling doesn't show gaps
+
+    private final Binder<T> binder;
+    private final int columns;
+    private final int gap;
+
+    private List<T> items = new ArrayList<>();
+    private int cardHeight = -1;
+
+    private final Map<Integer, JComponent> active = new HashMap<>();
+    private final ArrayDeque<JComponent> spare = new ArrayDeque<>();
+    private int created;
+
+    private JViewport viewport;
+    private final ChangeListener viewportListener = e -> layoutCards();
+
+    public VirtualCardGrid(int columns, int gap, Binder<T> binder) {
+        super(null);
+        this.columns = columns;
+        this.gap = gap;
+        this.binder = binder;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = new ArrayList<>(items);
+        for (JComponent card : active.values()) {
+            release(card);
+        }
+        active.clear();
+        cardHeight = -1;
+        revalidate();
+        repaint();
+    }
+
+    public int getItemCount() {
+        return items.size();
+    }
+
+    /** How many card components exist (shown + pooled); stays flat as the catalog grows. */
+    public int getCreatedCardCount() {
+        return created;
+    }
+
+    // ---------- LAYOUT ----------
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        if (getParent() instanceof JViewport) {
+            viewport = (JViewport) getParent();
+            viewport.addChangeListener(viewportListener);
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        if (viewport != null) {
+            viewport.removeChangeListener(viewportListener);
+            viewport = null;
+        }
+        super.removeNotify();
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        Insets in = getInsets();
+        int rows = (items.size() + columns - 1) / columns;
+        int h = rows == 0 ? 0 : rows * rowHeight() - gap;
+        int w = viewport != null ? viewport.getWidth() : columns * 250;
+        return new Dimension(w, h + in.top + in.bottom);
+    }
+
+    @Override
+    public void doLayout() {
+        layoutCards();
+    }
+
+    private void layoutCards() {
+        Insets in = getInsets();
+        int width = getWidth() - in.left - in.right;
+        if (width <= 0 || items.isEmpty()) {
+            return;
+        }
+
+        int colWidth = (width - gap * (columns - 1)) / columns;
+        int rowHeight = rowHeight();
+        Rectangle visible = getVisibleRect();
+
+        int firstRow = Math.max(0, (visible.y - in.top) / rowHeight - OVERSCAN_ROWS);
+        int lastRow = (visible.y + visible.height - in.top) / rowHeight + OVERSCAN_ROWS;
+        int first = firstRow * columns;
+        int last = Math.min(items.size() - 1, (lastRow + 1) * columns - 1);
+
+        // recycle cards that scrolled out
+        Iterator<Map.Entry<Integer, JComponent>> it = active.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, JComponent> e = it.next();
+            if (e.getKey() < first || e.getKey() > last) {
+                release(e.getValue());
+                it.remove();
+            }
+        }
+
+        for (int i = first; i <= last; i++) {
+            JComponent card = active.get(i);
+            if (card == null) {
+                card = acquire();
+                binder.bind(card, items.get(i));
+                active.put(i, card);
+            }
+            int x = in.left + (i % columns) * (colWidth + gap);
+            int y = in.top + (i / columns) * rowHeight;
+            card.setBounds(x, y, colWidth, cardHeight);
+            card.validate();
+        }
+    }
+
+    // Card height plus the gap below it; measured once from the first entry
+    private int rowHeight() {
+        if (cardHeight < 0) {
+            if (items.isEmpty()) {
+                return 1;
+            }
+            JComponent probe = acquire();
+            binder.bind(probe, items.get(0));
+            cardHeight = probe.getPreferredSize().height;
+            release(probe);
+        }
+        return cardHeight + gap;
+    }
+
+    // Pooled cards stay children of the grid, just hidden: cheaper than remove/add on every scroll
+    private JComponent acquire() {
+        JComponent card = spare.poll();
+        if (card == null) {
+            card = binder.create();
+            add(card);
+            created++;
+        }
+        card.setVisible(true);
+        return card;
+    }
+
+    private void release(JComponent card) {
+        card.setVisible(false);
+        spare.push(card);
+    }
+
+    // ---------- SCROLLABLE ----------
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return 24;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return true;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+}